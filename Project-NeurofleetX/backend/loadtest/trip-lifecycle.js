@@ -0,0 +1,52 @@
+// k6 run -e BASE_URL=http://localhost:8888 -e VUS=800 loadtest/trip-lifecycle.js
+//
+// Each iteration drives one full trip: create driver + vehicle + trip, assign, start,
+// complete. assign and complete each make several sequential Mongo round trips, which
+// is where platform-thread and virtual-thread execution differ.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE = __ENV.BASE_URL || 'http://localhost:8888';
+const VUS = parseInt(__ENV.VUS || '800');
+
+export const options = {
+  scenarios: {
+    lifecycle: {
+      executor: 'ramping-vus',
+      stages: [
+        { duration: '30s', target: VUS },
+        { duration: __ENV.HOLD || '2m', target: VUS },
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  const res = http.post(`${BASE}/api/auth/login`,
+    JSON.stringify({ email: 'dispatcher@neurofleetx.com', password: 'dispatcher123' }),
+    { headers: { 'Content-Type': 'application/json' } });
+  return { token: res.json('token') };
+}
+
+export default function (data) {
+  const params = { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` } };
+  const lat = 12.9 + Math.random() * 0.2, lon = 77.5 + Math.random() * 0.2;
+  const loc = { latitude: lat, longitude: lon };
+
+  const driver = http.post(`${BASE}/api/drivers`,
+    JSON.stringify({ firstName: 'Load', lastName: `VU${__VU}`, status: 'AVAILABLE', currentLocation: loc }), params);
+  const vehicle = http.post(`${BASE}/api/vehicles`,
+    JSON.stringify({ licensePlate: `LT-${__VU}-${__ITER}`, status: 'AVAILABLE', currentLocation: loc }), params);
+  const trip = http.post(`${BASE}/api/trips`,
+    JSON.stringify({ passengerId: `p-${__VU}`, pickupLocation: loc, dropoffLocation: loc }), params);
+  if (!check(trip, { 'trip created': (r) => r.status === 200 })) return;
+
+  const tripId = trip.json('id');
+  const assign = http.put(`${BASE}/api/trips/${tripId}/assign?driverId=${driver.json('id')}&vehicleId=${vehicle.json('id')}`,
+    null, params);
+  check(assign, { 'assigned': (r) => r.status === 200 });
+  check(http.put(`${BASE}/api/trips/${tripId}/start`, null, params), { 'started': (r) => r.status === 200 });
+  check(http.put(`${BASE}/api/trips/${tripId}/complete`, null, params), { 'completed': (r) => r.status === 200 });
+}
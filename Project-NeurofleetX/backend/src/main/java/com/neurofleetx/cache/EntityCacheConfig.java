@@ -0,0 +1,50 @@
+package com.neurofleetx.cache;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Read-through caches in front of the hot repository lookups. Repositories declare
+ * what is cached and evicted (see the @Cacheable/@CacheEvict overrides, which cover
+ * every save and delete variant); writes that go through MongoTemplate directly, or
+ * through the reactive repository, evict or patch via {@link EntityCaches}.
+ */
+@Configuration
+@EnableCaching
+public class EntityCacheConfig {
+    public static final String DRIVERS = "drivers";
+    public static final String VEHICLES = "vehicles";
+    public static final String TRIPS = "trips";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+
+    @Bean
+    public CacheManager cacheManager(MongoConverter converter,
+                                     @Value("${cache.entities.max-size:10000}") long maxSize,
+                                     @Value("${cache.entities.ttl-seconds:300}") long ttlSeconds) {
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(
+                cache(DRIVERS, converter, maxSize, ttlSeconds),
+                cache(VEHICLES, converter, maxSize, ttlSeconds),
+                cache(TRIPS, converter, maxSize, ttlSeconds),
+                cache(USERS_BY_EMAIL, converter, maxSize, ttlSeconds)));
+        return manager;
+    }
+
+    private static EntityCopyingCache cache(String name, MongoConverter converter, long maxSize, long ttlSeconds) {
+        return new EntityCopyingCache(name, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(), converter);
+    }
+}
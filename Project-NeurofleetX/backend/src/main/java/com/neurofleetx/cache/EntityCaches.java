@@ -0,0 +1,46 @@
+package com.neurofleetx.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/** Invalidation and stats for the entity caches, used where writes bypass the repositories. */
+@Component
+public class EntityCaches {
+    @Autowired
+    private CacheManager cacheManager;
+
+    public void evict(String cacheName, String id) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && id != null) cache.evict(id);
+    }
+
+    public void patch(String cacheName, String id, Map<String, Object> fields) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof EntityCopyingCache && id != null) ((EntityCopyingCache) cache).patch(id, fields);
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> all = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache c = cacheManager.getCache(name);
+            if (!(c instanceof EntityCopyingCache)) continue;
+            EntityCopyingCache cache = (EntityCopyingCache) c;
+            CacheStats s = cache.getNativeCache().stats();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("size", cache.getNativeCache().estimatedSize());
+            m.put("hits", s.hitCount());
+            m.put("misses", s.missCount());
+            m.put("hitRate", s.hitRate());
+            m.put("evictions", s.evictionCount());
+            all.put(name, m);
+        }
+        return all;
+    }
+}
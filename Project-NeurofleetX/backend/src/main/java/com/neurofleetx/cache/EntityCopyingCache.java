@@ -0,0 +1,64 @@
+package com.neurofleetx.cache;
+
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caffeine-backed cache that keeps entities as their converted BSON form and builds a
+ * fresh instance on every hit. Controllers mutate what findById returns before saving
+ * it, so handing out a shared instance would leak half-applied changes to other requests.
+ */
+public class EntityCopyingCache extends CaffeineCache {
+    private static final class Stored {
+        final Class<?> type;
+        final Document document;
+
+        Stored(Class<?> type, Document document) {
+            this.type = type;
+            this.document = document;
+        }
+    }
+
+    private final MongoConverter converter;
+
+    public EntityCopyingCache(String name, Cache<Object, Object> cache, MongoConverter converter) {
+        super(name, cache, false);
+        this.converter = converter;
+    }
+
+    /**
+     * Applies field-level changes made by a targeted $set to a cached entry, if present,
+     * so high-frequency updates such as positions do not have to evict hot entries.
+     */
+    public void patch(Object key, Map<String, Object> fields) {
+        getNativeCache().asMap().computeIfPresent(key, (k, v) -> {
+            if (!(v instanceof Stored)) return v;
+            Stored s = (Stored) v;
+            Document copy = new Document(s.document);
+            fields.forEach((f, value) -> copy.put(f, converter.convertToMongoType(value)));
+            return new Stored(s.type, copy);
+        });
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        if (userValue == null) return super.toStoreValue(null);
+        Document document = new Document();
+        converter.write(userValue, document);
+        return new Stored(userValue.getClass(), document);
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        if (storeValue instanceof Stored) {
+            Stored s = (Stored) storeValue;
+            return converter.read(s.type, s.document);
+        }
+        return super.fromStoreValue(storeValue);
+    }
+}
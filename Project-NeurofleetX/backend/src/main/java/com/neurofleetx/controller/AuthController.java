@@ -2,10 +2,13 @@ package com.neurofleetx.controller;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,7 +20,15 @@ import org.springframework.web.bind.annotation.RestController;
 import com.neurofleetx.model.User;
 import com.neurofleetx.repository.UserRepository;
 import com.neurofleetx.security.JwtUtil;
-
+import com.neurofleetx.security.LoginThrottle;
+import com.neurofleetx.security.PasswordHasher;
+
+/**
+ * Login and signup hash passwords on {@link PasswordHasher}'s pool and return a future,
+ * so request threads are released while BCrypt runs. Cheap checks come first: the
+ * per-email throttle, then the user lookup. When the hashing queue is full the
+ * request is answered 429 straight away.
+ */
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin
@@ -26,30 +37,48 @@ public class AuthController {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
 
     @Autowired
     private JwtUtil jwtUtil;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> body) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> body) {
         String email = body.get("email");
         String password = body.get("password");
 
-        java.util.Optional<User> userOpt = userRepository.findByEmail(email);
+        if (!loginThrottle.tryAcquire(email)) return CompletableFuture.completedFuture(tooManyRequests("Too many login attempts, try again later"));
+
+        java.util.Optional<User> userOpt = email == null || password == null ? java.util.Optional.empty() : userRepository.findByEmail(email);
         if (!userOpt.isPresent()) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Invalid credentials");
-            return ResponseEntity.status(401).body(error);
+            return CompletableFuture.completedFuture(invalidCredentials());
         }
 
         User user = userOpt.get();
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Invalid credentials");
-            return ResponseEntity.status(401).body(error);
+        try {
+            return passwordHasher.matches(password, user.getPassword())
+                    .thenApply(ok -> ok ? loggedIn(user) : invalidCredentials());
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.completedFuture(tooManyRequests("Login service is busy, try again shortly"));
         }
+    }
+
+    private static ResponseEntity<?> invalidCredentials() {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid credentials");
+        return ResponseEntity.status(401).body(error);
+    }
 
+    private static ResponseEntity<?> tooManyRequests(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
+    private ResponseEntity<?> loggedIn(User user) {
         String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
 
         Map<String, Object> resp = new HashMap<>();
@@ -64,7 +93,7 @@ public class AuthController {
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> signup(@RequestBody Map<String, String> body) {
+    public CompletableFuture<ResponseEntity<?>> signup(@RequestBody Map<String, String> body) {
         String email = body.get("email");
         String password = body.get("password");
         String firstName = body.get("firstName");
@@ -75,46 +104,56 @@ public class AuthController {
         if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Email and password are required");
-            return ResponseEntity.status(400).body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.status(400).body(error));
         }
 
         if (firstName == null || firstName.isEmpty() || lastName == null || lastName.isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "First name and last name are required");
-            return ResponseEntity.status(400).body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.status(400).body(error));
         }
 
+        if (!loginThrottle.tryAcquire(email)) return CompletableFuture.completedFuture(tooManyRequests("Too many signup attempts, try again later"));
+
         // Check if email already exists
         java.util.Optional<User> existingUser = userRepository.findByEmail(email);
         if (existingUser.isPresent()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Email already registered");
-            return ResponseEntity.status(409).body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.status(409).body(error));
         }
 
-        // Create new user with encoded password
-        User newUser = new User(
-            email,
-            passwordEncoder.encode(password),
-            firstName,
-            lastName,
-            role
-        );
-
-        userRepository.save(newUser);
-
-        // Generate token
-        String token = jwtUtil.generateToken(newUser.getEmail(), newUser.getRole());
+        CompletableFuture<String> hash;
+        try {
+            hash = passwordHasher.encode(password);
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.completedFuture(tooManyRequests("Signup service is busy, try again shortly"));
+        }
+        return hash.thenApply(encoded -> {
+            // Create new user with encoded password
+            User newUser = new User(email, encoded, firstName, lastName, role);
+            try {
+                userRepository.save(newUser);
+            } catch (DuplicateKeyException ex) {
+                // registered concurrently since the check above; the unique index caught it
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Email already registered");
+                return ResponseEntity.status(409).body(error);
+            }
 
-        Map<String, Object> resp = new HashMap<>();
-        resp.put("token", token);
-        resp.put("id", newUser.getId());
-        resp.put("email", newUser.getEmail());
-        resp.put("firstName", newUser.getFirstName());
-        resp.put("lastName", newUser.getLastName());
-        resp.put("role", newUser.getRole());
+            // Generate token
+            String token = jwtUtil.generateToken(newUser.getEmail(), newUser.getRole());
 
-        return ResponseEntity.status(201).body(resp);
+            Map<String, Object> resp = new HashMap<>();
+            resp.put("token", token);
+            resp.put("id", newUser.getId());
+            resp.put("email", newUser.getEmail());
+            resp.put("firstName", newUser.getFirstName());
+            resp.put("lastName", newUser.getLastName());
+            resp.put("role", newUser.getRole());
+
+            return ResponseEntity.status(201).body(resp);
+        });
     }
 
     @GetMapping("/verify")
@@ -0,0 +1,24 @@
+package com.neurofleetx.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neurofleetx.cache.EntityCaches;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin
+public class CacheController {
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @GetMapping("/stats")
+    public Map<String, Map<String, Object>> stats() {
+        return entityCaches.stats();
+    }
+}
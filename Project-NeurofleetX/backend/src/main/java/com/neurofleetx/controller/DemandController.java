@@ -0,0 +1,55 @@
+package com.neurofleetx.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neurofleetx.demand.DemandForecaster;
+
+@RestController
+@RequestMapping("/api/demand")
+@CrossOrigin
+public class DemandController {
+    private static final int MAX_ZOOM = 22;
+
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @GetMapping("/forecast")
+    public ResponseEntity<?> forecast(@RequestParam double lat,
+                                      @RequestParam double lon,
+                                      @RequestParam(defaultValue = "60") int minutes) {
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || lat < -90 || lat > 90 || lon < -180 || lon > 180 || minutes < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid lat, lon or minutes"));
+        }
+        return ResponseEntity.ok(demandForecaster.forecast(lat, lon, minutes));
+    }
+
+    @GetMapping("/hotspots")
+    public ResponseEntity<?> hotspots(@RequestParam(defaultValue = "60") int minutes,
+                                      @RequestParam(defaultValue = "20") int limit) {
+        if (minutes < 1 || limit < 1) return ResponseEntity.badRequest().body(Map.of("error", "Invalid minutes or limit"));
+        return ResponseEntity.ok(demandForecaster.hotspots(minutes, limit));
+    }
+
+    @GetMapping("/heatmap/{z}/{x}/{y}")
+    public ResponseEntity<?> heatmap(@PathVariable int z, @PathVariable int x, @PathVariable int y,
+                                     @RequestParam(defaultValue = "60") int minutes) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= 1 << z || y >= 1 << z || minutes < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid tile or minutes"));
+        }
+        return ResponseEntity.ok(demandForecaster.tile(z, x, y, minutes));
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return demandForecaster.status();
+    }
+}
@@ -1,10 +1,18 @@
 package com.neurofleetx.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,13 +21,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.dispatch.NearbySearch;
+import com.neurofleetx.history.LocationHistoryService;
+import com.neurofleetx.importer.FleetImporter;
 import com.neurofleetx.model.Driver;
-import com.neurofleetx.model.Location;
+import com.neurofleetx.paging.KeysetPager;
 import com.neurofleetx.repository.DriverRepository;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.telemetry.LocationPing;
+import com.neurofleetx.telemetry.TelemetryIngestor;
 
 @RestController
 @RequestMapping("/api/drivers")
@@ -28,14 +45,52 @@ public class DriverController {
     @Autowired
     private DriverRepository driverRepository;
 
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private TelemetryIngestor telemetryIngestor;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private NearbySearch nearbySearch;
+
+    @Autowired
+    private FleetImporter fleetImporter;
+
     @GetMapping
-    public List<Driver> all() {
-        return driverRepository.findAll();
+    public ResponseEntity<StreamingResponseBody> all(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Driver.class, null, cursor, limit, fields);
     }
 
     @GetMapping("/available")
-    public List<Driver> available() {
-        return driverRepository.findByStatus("AVAILABLE");
+    public ResponseEntity<StreamingResponseBody> available(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Driver.class, Criteria.where("status").is("AVAILABLE"), cursor, limit, fields);
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<?> nearby(@RequestParam double lat,
+                                    @RequestParam double lon,
+                                    @RequestParam(required = false) Double radius,
+                                    @RequestParam(defaultValue = "AVAILABLE") String status,
+                                    @RequestParam(required = false) Integer limit) {
+        GeoJsonPoint point = nearbySearch.point(lat, lon, radius);
+        if (point == null) return ResponseEntity.badRequest().body(Map.of("error", "Invalid lat, lon or radius"));
+        return ResponseEntity.ok(NearbySearch.results(
+                driverRepository.findByStatusAndPositionNear(status, point, nearbySearch.radius(radius), nearbySearch.page(limit)),
+                "driver"));
     }
 
     @GetMapping("/{id}")
@@ -45,9 +100,32 @@ public class DriverController {
     }
 
     @PostMapping
-    public Driver create(@RequestBody Driver driver) {
+    public ResponseEntity<?> create(@RequestBody Driver driver) {
         driver.setStatus(driver.getStatus() == null ? "AVAILABLE" : driver.getStatus());
-        return driverRepository.save(driver);
+        Driver saved;
+        try {
+            saved = driverRepository.save(driver);
+        } catch (DuplicateKeyException ex) {
+            return ResponseEntity.status(409).body(Map.of("error", "A driver with this email already exists"));
+        }
+        fleetIndex.track(saved);
+        fleetEventBus.publish("DRIVER", saved.getId(), saved.getStatus(), saved.getCurrentLocation());
+        return ResponseEntity.ok(saved);
+    }
+
+    /** Bulk onboarding from a CSV (header row) or NDJSON body, optionally gzip-encoded. */
+    @PostMapping("/import")
+    public ResponseEntity<?> importAll(InputStream body,
+                                       @RequestParam(required = false) String format,
+                                       @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                       @RequestHeader(value = "Content-Encoding", required = false) String contentEncoding) throws IOException {
+        Boolean csv = FleetImporter.isCsv(format, contentType);
+        if (csv == null) return ResponseEntity.badRequest().body(Map.of("error", "Send text/csv or application/x-ndjson, or pass format=csv|ndjson"));
+        try {
+            return ResponseEntity.ok(fleetImporter.drivers(FleetImporter.decode(body, contentEncoding), csv));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
     }
 
     @PutMapping("/{id}")
@@ -60,7 +138,13 @@ public class DriverController {
             d.setLicenseNumber(update.getLicenseNumber());
             d.setVehicleId(update.getVehicleId());
             d.setStatus(update.getStatus());
-            driverRepository.save(d);
+            try {
+                driverRepository.save(d);
+            } catch (DuplicateKeyException ex) {
+                return ResponseEntity.status(409).body(Map.of("error", "A driver with this email already exists"));
+            }
+            fleetIndex.track(d);
+            fleetEventBus.publish("DRIVER", d.getId(), d.getStatus(), d.getCurrentLocation());
             return ResponseEntity.ok(d);
         }).orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -68,6 +152,8 @@ public class DriverController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable String id) {
         driverRepository.deleteById(id);
+        fleetIndex.drivers().remove(id);
+        fleetEventBus.publish("DRIVER", id, "DELETED", null, null);
         return ResponseEntity.ok().build();
     }
 
@@ -75,11 +161,21 @@ public class DriverController {
     public ResponseEntity<?> updateLocation(@PathVariable String id,
                                             @RequestParam Double latitude,
                                             @RequestParam Double longitude) {
-        return driverRepository.findById(id).map(d -> {
-            d.setCurrentLocation(new Location(latitude, longitude, null));
-            d.setLastActive(Instant.now());
-            driverRepository.save(d);
-            return ResponseEntity.ok().build();
-        }).orElseGet(() -> ResponseEntity.notFound().build());
+        LocationPing ping = new LocationPing("DRIVER", id, latitude, longitude, Instant.now());
+        if (!ping.isValid()) return ResponseEntity.badRequest().build();
+        if (!telemetryIngestor.isKnown(ping)) return ResponseEntity.notFound().build();
+        return telemetryIngestor.offer(ping) ? ResponseEntity.accepted().build() : ResponseEntity.status(429).build();
+    }
+
+    @GetMapping("/{id}/track")
+    public ResponseEntity<?> track(@PathVariable String id,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(1, ChronoUnit.HOURS) : from;
+        if (!locationHistoryService.isValidRange(start, end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from must not be after to, and the range is capped at history.max-range-hours"));
+        }
+        return ResponseEntity.ok(locationHistoryService.track("DRIVER", id, start, end));
     }
 }
@@ -0,0 +1,101 @@
+package com.neurofleetx.controller;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neurofleetx.dispatch.AssignmentService;
+import com.neurofleetx.dispatch.DispatchEngine;
+import com.neurofleetx.dispatch.ReactiveAssignmentService;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.repository.ReactiveTripRepository;
+import com.neurofleetx.routing.RoutingService;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.ReactiveTripLifecycle;
+import com.neurofleetx.trip.TripEventLog;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Trip lifecycle on the reactive Mongo driver. Handlers return a Mono, so no request
+ * thread waits on the database; the response is written once the driver completes.
+ * Each status change is a single findAndModify rather than a read followed by a save.
+ */
+@RestController
+@RequestMapping("/api/reactive/trips")
+@CrossOrigin
+public class ReactiveTripController {
+    @Autowired
+    private ReactiveTripRepository tripRepository;
+
+    @Autowired
+    private ReactiveAssignmentService assignmentService;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private ReactiveTripLifecycle tripLifecycle;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @PostMapping
+    public Mono<Trip> create(@RequestBody Trip trip) {
+        TripController.requested(trip);
+        trip.setRequestedTime(Instant.now());
+        trip.setPredictedDurationSeconds(routingService.durationSeconds(trip.getPickupLocation(), trip.getDropoffLocation()));
+        return tripRepository.save(trip).doOnNext(saved -> {
+            tripEventLog.append(saved, null, saved.getStatus());
+            fleetEventBus.publish("TRIP", saved.getId(), saved.getStatus(), saved.getPickupLocation());
+            dispatchEngine.submit(saved);
+        });
+    }
+
+    @PutMapping("/{id}/assign")
+    public Mono<ResponseEntity<?>> assign(@PathVariable String id, @RequestParam String driverId, @RequestParam String vehicleId) {
+        return assignmentService.assign(id, driverId, vehicleId).map(result -> {
+            if (result.getOutcome() == AssignmentService.Outcome.ASSIGNED) dispatchEngine.withdraw(id);
+            return TripController.assignResponse(result);
+        });
+    }
+
+    @PostMapping("/{id}/optimize")
+    public Mono<ResponseEntity<Map<String, Object>>> optimize(@PathVariable String id) {
+        // quickest available driver and vehicle to the pickup, answered from the in-memory index and road graph
+        return tripRepository.findById(id)
+                .map(trip -> ResponseEntity.ok(dispatchEngine.suggest(trip.getPickupLocation())))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{id}/start")
+    public Mono<ResponseEntity<?>> start(@PathVariable String id) {
+        return tripLifecycle.start(id).map(TripController::transitionResponse);
+    }
+
+    @PutMapping("/{id}/cancel")
+    public Mono<ResponseEntity<?>> cancel(@PathVariable String id) {
+        return tripLifecycle.cancel(id).map(TripController::transitionResponse);
+    }
+
+    @PutMapping("/{id}/complete")
+    public Mono<ResponseEntity<?>> complete(@PathVariable String id) {
+        return tripLifecycle.complete(id).map(TripController::transitionResponse);
+    }
+}
@@ -0,0 +1,44 @@
+package com.neurofleetx.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neurofleetx.routing.RoutingService;
+
+@RestController
+@RequestMapping("/api/routing")
+@CrossOrigin
+public class RoutingController {
+    @Autowired
+    private RoutingService routingService;
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        return routingService.status();
+    }
+
+    @GetMapping("/eta")
+    public ResponseEntity<?> eta(@RequestParam double fromLat, @RequestParam double fromLon,
+                                 @RequestParam double toLat, @RequestParam double toLon) {
+        if (!valid(fromLat, fromLon) || !valid(toLat, toLon)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid fromLat, fromLon, toLat or toLon"));
+        }
+        double routed = routingService.routedSeconds(fromLat, fromLon, toLat, toLon);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("seconds", Math.round(Double.isNaN(routed) ? routingService.fallbackSeconds(fromLat, fromLon, toLat, toLon) : routed));
+        m.put("routed", !Double.isNaN(routed));
+        return ResponseEntity.ok(m);
+    }
+
+    private static boolean valid(double lat, double lon) {
+        return Double.isFinite(lat) && Double.isFinite(lon) && Math.abs(lat) <= 90 && Math.abs(lon) <= 180;
+    }
+}
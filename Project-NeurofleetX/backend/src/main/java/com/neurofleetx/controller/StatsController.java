@@ -0,0 +1,24 @@
+package com.neurofleetx.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neurofleetx.stats.FleetKpis;
+
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin
+public class StatsController {
+    @Autowired
+    private FleetKpis fleetKpis;
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        return fleetKpis.snapshot();
+    }
+}
@@ -0,0 +1,48 @@
+package com.neurofleetx.controller;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.stream.FleetSubscription;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin
+public class StreamController {
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Value("${stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // bbox is minLat,minLon,maxLat,maxLon
+    @GetMapping("/fleet")
+    public ResponseEntity<?> fleet(@RequestParam(required = false) List<String> types,
+                                   @RequestParam(required = false) List<String> status,
+                                   @RequestParam(required = false) List<Double> bbox,
+                                   @RequestParam(defaultValue = "true") boolean snapshot) throws IOException {
+        if (bbox != null && bbox.size() != 4) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bbox must be minLat,minLon,maxLat,maxLon"));
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        double[] box = bbox == null ? null : new double[] { bbox.get(0), bbox.get(1), bbox.get(2), bbox.get(3) };
+        fleetEventBus.subscribe(new FleetSubscription(emitter,
+                types == null ? null : new HashSet<>(types),
+                status == null ? null : new HashSet<>(status),
+                box), snapshot);
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,44 @@
+package com.neurofleetx.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neurofleetx.telemetry.LocationPing;
+import com.neurofleetx.telemetry.TelemetryIngestor;
+
+@RestController
+@RequestMapping("/api/telemetry")
+@CrossOrigin
+public class TelemetryController {
+    @Autowired
+    private TelemetryIngestor telemetryIngestor;
+
+    @Value("${telemetry.max-batch:5000}")
+    private int maxBatch;
+
+    @PostMapping("/locations")
+    public ResponseEntity<?> locations(@RequestBody List<LocationPing> pings) {
+        if (pings.size() > maxBatch) {
+            return ResponseEntity.status(413).body(Map.of("error", "At most " + maxBatch + " pings per batch"));
+        }
+        int accepted = 0, rejected = 0, unknown = 0, dropped = 0;
+        for (LocationPing p : pings) {
+            if (!p.isValid() || !telemetryIngestor.isTimely(p)) rejected++;
+            else if (!telemetryIngestor.isKnown(p)) unknown++;
+            else if (telemetryIngestor.offer(p)) accepted++;
+            else dropped++;
+        }
+        Map<String, Integer> resp = Map.of("accepted", accepted, "rejected", rejected, "unknown", unknown, "dropped", dropped);
+        // dropped pings hit a full queue; the client should resend them after a pause
+        return ResponseEntity.status(dropped > 0 ? 429 : 202).body(resp);
+    }
+}
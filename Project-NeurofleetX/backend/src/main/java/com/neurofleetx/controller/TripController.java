@@ -1,11 +1,19 @@
 package com.neurofleetx.controller;
 
+import java.io.OutputStream;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,16 +21,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.neurofleetx.model.Driver;
+import com.neurofleetx.dispatch.AssignmentService;
+import com.neurofleetx.dispatch.DispatchEngine;
+import com.neurofleetx.export.TripExporter;
 import com.neurofleetx.model.Trip;
-import com.neurofleetx.model.Vehicle;
-import com.neurofleetx.repository.DriverRepository;
+import com.neurofleetx.paging.KeysetPager;
+import com.neurofleetx.pooling.PoolRoutes;
+import com.neurofleetx.pooling.PoolingService;
 import com.neurofleetx.repository.TripRepository;
-import com.neurofleetx.repository.VehicleRepository;
+import com.neurofleetx.routing.RoutingService;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripEvent;
+import com.neurofleetx.trip.TripEventLog;
+import com.neurofleetx.trip.TripLifecycle;
+import com.neurofleetx.trip.TripStateMachine;
 
 @RestController
 @RequestMapping("/api/trips")
@@ -32,13 +50,76 @@ public class TripController {
     private TripRepository tripRepository;
 
     @Autowired
-    private DriverRepository driverRepository;
+    private DispatchEngine dispatchEngine;
 
     @Autowired
-    private VehicleRepository vehicleRepository;
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private TripExporter tripExporter;
+
+    @Autowired
+    private TripLifecycle tripLifecycle;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Autowired
+    private PoolingService poolingService;
+
+    @Autowired
+    private PoolRoutes poolRoutes;
 
     @GetMapping
-    public List<Trip> all() { return tripRepository.findAll(); }
+    public ResponseEntity<StreamingResponseBody> all(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Trip.class, null, cursor, limit, fields);
+    }
+
+    // Bulk export for analytics: NDJSON or CSV straight from a cursor, gzipped when the client accepts it
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(defaultValue = "requestedTime") String timeField,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                        @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        boolean csv = "csv".equals(format);
+        if (!csv && !"ndjson".equals(format)) return ResponseEntity.badRequest().build();
+        if (!"requestedTime".equals(timeField) && !"endTime".equals(timeField)) return ResponseEntity.badRequest().build();
+
+        Criteria c = new Criteria();
+        if (status != null) c = c.and("status").is(status);
+        if (from != null || to != null) {
+            Criteria range = c.and(timeField);
+            if (from != null) range.gte(from);
+            if (to != null) range.lt(to);
+        }
+        Query query = new Query(c);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            if (csv) tripExporter.csv(query, target);
+            else tripExporter.ndjson(query, target);
+            if (gzip) ((GZIPOutputStream) target).finish();
+        };
+        ResponseEntity.BodyBuilder resp = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=trips." + format);
+        if (gzip) resp.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return resp.body(body);
+    }
 
     @GetMapping("/{id}")
     public ResponseEntity<Trip> getById(@PathVariable String id) {
@@ -49,82 +130,135 @@ public class TripController {
 
     @PostMapping
     public Trip create(@RequestBody Trip trip) {
-        trip.setStatus(trip.getStatus() == null ? "REQUESTED" : trip.getStatus());
+        requested(trip);
         trip.setRequestedTime(Instant.now());
-        return tripRepository.save(trip);
+        trip.setPredictedDurationSeconds(routingService.durationSeconds(trip.getPickupLocation(), trip.getDropoffLocation()));
+        Trip saved = tripRepository.save(trip);
+        tripEventLog.append(saved, null, saved.getStatus());
+        fleetEventBus.publish("TRIP", saved.getId(), saved.getStatus(), saved.getPickupLocation());
+        dispatchEngine.submit(saved);
+        return saved;
+    }
+
+    /**
+     * New trips always start REQUESTED and unassigned; any other status, id or assignment
+     * in the body is dropped so creation cannot bypass TripStateMachine.
+     */
+    static void requested(Trip trip) {
+        trip.setId(null);
+        trip.setStatus(TripStateMachine.REQUESTED);
+        trip.setDriverId(null);
+        trip.setVehicleId(null);
+        trip.setStartTime(null);
+        trip.setEndTime(null);
     }
 
     @PutMapping("/{id}/assign")
     public ResponseEntity<?> assign(@PathVariable String id, @RequestParam String driverId, @RequestParam String vehicleId) {
-        Optional<Trip> t = tripRepository.findById(id);
-        if (t.isEmpty()) return ResponseEntity.notFound().build();
-        Trip trip = t.get();
-        trip.setDriverId(driverId);
-        trip.setVehicleId(vehicleId);
-        trip.setStatus("ASSIGNED");
-        Trip saved = tripRepository.save(trip);
-
-        driverRepository.findById(driverId).ifPresent(d -> { d.setStatus("BUSY"); d.setVehicleId(vehicleId); driverRepository.save(d); });
-        vehicleRepository.findById(vehicleId).ifPresent(v -> { v.setStatus("BUSY"); v.setDriverId(driverId); vehicleRepository.save(v); });
+        AssignmentService.Result result = assignmentService.assign(id, driverId, vehicleId);
+        if (result.getOutcome() == AssignmentService.Outcome.ASSIGNED) dispatchEngine.withdraw(id);
+        return assignResponse(result);
+    }
 
-        return ResponseEntity.ok(saved);
+    static ResponseEntity<?> assignResponse(AssignmentService.Result result) {
+        switch (result.getOutcome()) {
+            case ASSIGNED:
+                return ResponseEntity.ok(result.getTrip());
+            case TRIP_NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case TRIP_NOT_REQUESTED:
+                return ResponseEntity.status(409).body(Map.of("error", "Trip is no longer awaiting assignment"));
+            case DRIVER_UNAVAILABLE:
+                return ResponseEntity.status(409).body(Map.of("error", "Driver is not available"));
+            default:
+                return ResponseEntity.status(409).body(Map.of("error", "Vehicle is not available"));
+        }
     }
 
     @PostMapping("/{id}/optimize")
     public ResponseEntity<?> optimize(@PathVariable String id) {
-        // Very simple optimizer: pick first available driver and vehicle
-        List<Driver> drivers = driverRepository.findByStatus("AVAILABLE");
-        List<Vehicle> vehicles = vehicleRepository.findByStatus("AVAILABLE");
+        Optional<Trip> t = tripRepository.findById(id);
+        if (t.isEmpty()) return ResponseEntity.notFound().build();
+
+        // quickest available driver and vehicle to the pickup, answered from the in-memory index and road graph
+        return ResponseEntity.ok(dispatchEngine.suggest(t.get().getPickupLocation()));
+    }
 
-        if (drivers.isEmpty() || vehicles.isEmpty()) {
-            return ResponseEntity.ok(Map.of());
+    // join a shared trip onto a vehicle already serving other shared trips, within detour and seat limits
+    @PostMapping("/{id}/pool")
+    public ResponseEntity<?> pool(@PathVariable String id) {
+        PoolingService.Result result = poolingService.pool(id);
+        switch (result.getOutcome()) {
+            case POOLED:
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("trip", result.getTrip());
+                body.put("pickupEtaSeconds", result.getPickupEtaSeconds());
+                body.put("addedSeconds", result.getAddedSeconds());
+                return ResponseEntity.ok(body);
+            case TRIP_NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case TRIP_NOT_REQUESTED:
+                return ResponseEntity.status(409).body(Map.of("error", "Trip is no longer awaiting assignment"));
+            case NOT_SHARED:
+                return ResponseEntity.status(409).body(Map.of("error", "Trip was not requested as shared"));
+            default:
+                return ResponseEntity.status(409).body(Map.of("error", "No vehicle can take this trip within the detour and seat limits"));
         }
+    }
 
-        String driverId = drivers.get(0).getId();
-        String vehicleId = vehicles.get(0).getId();
-        return ResponseEntity.ok(Map.of("driverId", driverId, "vehicleId", vehicleId));
+    @GetMapping("/pooling/status")
+    public Map<String, Object> poolingStatus() {
+        return poolRoutes.status();
     }
 
     @PutMapping("/{id}/cancel")
     public ResponseEntity<?> cancel(@PathVariable String id) {
-        return tripRepository.findById(id).map(trip -> {
-            trip.setStatus("CANCELLED");
-            Trip saved = tripRepository.save(trip);
-            return ResponseEntity.ok(saved);
-        }).orElseGet(() -> ResponseEntity.notFound().build());
+        return transitionResponse(tripLifecycle.cancel(id));
     }
 
     @GetMapping("/driver/{driverId}")
-    public List<Trip> forDriver(@PathVariable String driverId) {
-        return tripRepository.findByDriverId(driverId);
+    public ResponseEntity<StreamingResponseBody> forDriver(@PathVariable String driverId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Trip.class, Criteria.where("driverId").is(driverId), cursor, limit, fields);
     }
 
     @PutMapping("/{id}/start")
     public ResponseEntity<?> start(@PathVariable String id) {
-        return tripRepository.findById(id).map(trip -> {
-            trip.setStatus("IN_PROGRESS");
-            trip.setStartTime(Instant.now());
-            Trip saved = tripRepository.save(trip);
-            return ResponseEntity.ok(saved);
-        }).orElseGet(() -> ResponseEntity.notFound().build());
+        return transitionResponse(tripLifecycle.start(id));
     }
 
     @PutMapping("/{id}/complete")
     public ResponseEntity<?> complete(@PathVariable String id) {
-        return tripRepository.findById(id).map(trip -> {
-            trip.setStatus("COMPLETED");
-            trip.setEndTime(Instant.now());
-            Trip saved = tripRepository.save(trip);
-
-            // free driver & vehicle
-            if (trip.getDriverId() != null) {
-                driverRepository.findById(trip.getDriverId()).ifPresent(d -> { d.setStatus("AVAILABLE"); driverRepository.save(d); });
-            }
-            if (trip.getVehicleId() != null) {
-                vehicleRepository.findById(trip.getVehicleId()).ifPresent(v -> { v.setStatus("AVAILABLE"); vehicleRepository.save(v); });
-            }
-
-            return ResponseEntity.ok(saved);
-        }).orElseGet(() -> ResponseEntity.notFound().build());
+        return transitionResponse(tripLifecycle.complete(id));
+    }
+
+    static ResponseEntity<?> transitionResponse(TripLifecycle.Result result) {
+        switch (result.getOutcome()) {
+            case OK:
+                return ResponseEntity.ok(result.getTrip());
+            case NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            default:
+                return ResponseEntity.status(409).body(Map.of("error", "Trip cannot make that transition from its current status"));
+        }
+    }
+
+    @GetMapping("/{id}/events")
+    public List<TripEvent> events(@PathVariable String id) {
+        return tripEventLog.events(id);
+    }
+
+    @GetMapping("/{id}/state")
+    public ResponseEntity<?> stateAt(@PathVariable String id,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) {
+        Map<String, Object> state = tripEventLog.stateAt(id, at);
+        return state == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(state);
+    }
+
+    @GetMapping("/projections/status")
+    public Map<String, Long> statusCounts() {
+        return tripEventLog.statusCounts();
     }
 }
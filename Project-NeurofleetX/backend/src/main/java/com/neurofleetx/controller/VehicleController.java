@@ -1,10 +1,19 @@
 package com.neurofleetx.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,13 +22,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.neurofleetx.model.Location;
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.dispatch.NearbySearch;
+import com.neurofleetx.history.LocationHistoryService;
+import com.neurofleetx.importer.FleetImporter;
 import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.paging.KeysetPager;
 import com.neurofleetx.repository.VehicleRepository;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.telemetry.LocationPing;
+import com.neurofleetx.telemetry.TelemetryIngestor;
 
 @RestController
 @RequestMapping("/api/vehicles")
@@ -28,14 +46,63 @@ public class VehicleController {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private TelemetryIngestor telemetryIngestor;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private NearbySearch nearbySearch;
+
+    @Autowired
+    private FleetImporter fleetImporter;
+
     @GetMapping
-    public List<Vehicle> all() { return vehicleRepository.findAll(); }
+    public ResponseEntity<StreamingResponseBody> all(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Vehicle.class, null, cursor, limit, fields);
+    }
 
     @GetMapping("/available")
-    public List<Vehicle> available() { return vehicleRepository.findByStatus("AVAILABLE"); }
+    public ResponseEntity<StreamingResponseBody> available(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Vehicle.class, Criteria.where("status").is("AVAILABLE"), cursor, limit, fields);
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<?> nearby(@RequestParam double lat,
+                                    @RequestParam double lon,
+                                    @RequestParam(required = false) Double radius,
+                                    @RequestParam(required = false) String type,
+                                    @RequestParam(defaultValue = "AVAILABLE") String status,
+                                    @RequestParam(required = false) Integer limit) {
+        GeoJsonPoint point = nearbySearch.point(lat, lon, radius);
+        if (point == null) return ResponseEntity.badRequest().body(Map.of("error", "Invalid lat, lon or radius"));
+        List<GeoResult<Vehicle>> found = type == null
+                ? vehicleRepository.findByStatusAndPositionNear(status, point, nearbySearch.radius(radius), nearbySearch.page(limit))
+                : vehicleRepository.findByStatusAndTypeAndPositionNear(status, type, point, nearbySearch.radius(radius), nearbySearch.page(limit));
+        return ResponseEntity.ok(NearbySearch.results(found, "vehicle"));
+    }
 
     @GetMapping("/driver/{driverId}")
-    public List<Vehicle> byDriver(@PathVariable String driverId) { return vehicleRepository.findByDriverId(driverId); }
+    public ResponseEntity<StreamingResponseBody> byDriver(@PathVariable String driverId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit,
+                                                          @RequestParam(required = false) List<String> fields) {
+        return keysetPager.page(Vehicle.class, Criteria.where("driverId").is(driverId), cursor, limit, fields);
+    }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> get(@PathVariable String id) {
@@ -44,7 +111,32 @@ public class VehicleController {
     }
 
     @PostMapping
-    public Vehicle create(@RequestBody Vehicle vehicle) { return vehicleRepository.save(vehicle); }
+    public ResponseEntity<?> create(@RequestBody Vehicle vehicle) {
+        Vehicle saved;
+        try {
+            saved = vehicleRepository.save(vehicle);
+        } catch (DuplicateKeyException ex) {
+            return ResponseEntity.status(409).body(Map.of("error", "A vehicle with this license plate already exists"));
+        }
+        fleetIndex.track(saved);
+        fleetEventBus.publish("VEHICLE", saved.getId(), saved.getStatus(), saved.getCurrentLocation());
+        return ResponseEntity.ok(saved);
+    }
+
+    /** Bulk onboarding from a CSV (header row) or NDJSON body, optionally gzip-encoded. */
+    @PostMapping("/import")
+    public ResponseEntity<?> importAll(InputStream body,
+                                       @RequestParam(required = false) String format,
+                                       @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                       @RequestHeader(value = "Content-Encoding", required = false) String contentEncoding) throws IOException {
+        Boolean csv = FleetImporter.isCsv(format, contentType);
+        if (csv == null) return ResponseEntity.badRequest().body(Map.of("error", "Send text/csv or application/x-ndjson, or pass format=csv|ndjson"));
+        try {
+            return ResponseEntity.ok(fleetImporter.vehicles(FleetImporter.decode(body, contentEncoding), csv));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> update(@PathVariable String id, @RequestBody Vehicle update) {
@@ -56,7 +148,13 @@ public class VehicleController {
             v.setColor(update.getColor());
             v.setType(update.getType());
             v.setStatus(update.getStatus());
-            vehicleRepository.save(v);
+            try {
+                vehicleRepository.save(v);
+            } catch (DuplicateKeyException ex) {
+                return ResponseEntity.status(409).body(Map.of("error", "A vehicle with this license plate already exists"));
+            }
+            fleetIndex.track(v);
+            fleetEventBus.publish("VEHICLE", v.getId(), v.getStatus(), v.getCurrentLocation());
             return ResponseEntity.ok(v);
         }).orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -64,6 +162,8 @@ public class VehicleController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable String id) {
         vehicleRepository.deleteById(id);
+        fleetIndex.vehicles().remove(id);
+        fleetEventBus.publish("VEHICLE", id, "DELETED", null, null);
         return ResponseEntity.ok().build();
     }
 
@@ -71,11 +171,21 @@ public class VehicleController {
     public ResponseEntity<?> updateLocation(@PathVariable String id,
                                             @RequestParam Double latitude,
                                             @RequestParam Double longitude) {
-        return vehicleRepository.findById(id).map(v -> {
-            v.setCurrentLocation(new Location(latitude, longitude, null));
-            v.setLastUpdated(Instant.now());
-            vehicleRepository.save(v);
-            return ResponseEntity.ok().build();
-        }).orElseGet(() -> ResponseEntity.notFound().build());
+        LocationPing ping = new LocationPing("VEHICLE", id, latitude, longitude, Instant.now());
+        if (!ping.isValid()) return ResponseEntity.badRequest().build();
+        if (!telemetryIngestor.isKnown(ping)) return ResponseEntity.notFound().build();
+        return telemetryIngestor.offer(ping) ? ResponseEntity.accepted().build() : ResponseEntity.status(429).build();
+    }
+
+    @GetMapping("/{id}/track")
+    public ResponseEntity<?> track(@PathVariable String id,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(1, ChronoUnit.HOURS) : from;
+        if (!locationHistoryService.isValidRange(start, end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from must not be after to, and the range is capped at history.max-range-hours"));
+        }
+        return ResponseEntity.ok(locationHistoryService.track("VEHICLE", id, start, end));
     }
 }
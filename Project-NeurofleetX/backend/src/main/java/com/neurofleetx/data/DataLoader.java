@@ -1,6 +1,7 @@
 package com.neurofleetx.data;
 
 import java.time.Instant;
+import java.util.List;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -23,27 +24,26 @@ public class DataLoader {
     CommandLineRunner init(UserRepository userRepository, DriverRepository driverRepository, VehicleRepository vehicleRepository, TripRepository tripRepository, PasswordEncoder passwordEncoder) {
         return args -> {
             if (userRepository.count() == 0) {
-                userRepository.save(new User("admin@neurofleetx.com", passwordEncoder.encode("admin123"), "Admin", "User", "ADMIN"));
-                userRepository.save(new User("dispatcher@neurofleetx.com", passwordEncoder.encode("dispatcher123"), "Dispatch", "User", "DISPATCHER"));
-                userRepository.save(new User("driver@neurofleetx.com", passwordEncoder.encode("driver123"), "Demo", "Driver", "DRIVER"));
+                userRepository.saveAll(List.of(
+                        new User("admin@neurofleetx.com", passwordEncoder.encode("admin123"), "Admin", "User", "ADMIN"),
+                        new User("dispatcher@neurofleetx.com", passwordEncoder.encode("dispatcher123"), "Dispatch", "User", "DISPATCHER"),
+                        new User("driver@neurofleetx.com", passwordEncoder.encode("driver123"), "Demo", "Driver", "DRIVER")));
             }
 
             if (driverRepository.count() == 0) {
                 Driver d1 = new Driver();
                 d1.setEmail("driver1@example.com"); d1.setFirstName("John"); d1.setLastName("Doe"); d1.setPhoneNumber("+123456789"); d1.setLicenseNumber("D1234"); d1.setStatus("AVAILABLE");
-                driverRepository.save(d1);
 
                 Driver d2 = new Driver();
                 d2.setEmail("driver2@example.com"); d2.setFirstName("Jane"); d2.setLastName("Smith"); d2.setPhoneNumber("+987654321"); d2.setLicenseNumber("D5678"); d2.setStatus("AVAILABLE");
-                driverRepository.save(d2);
+                driverRepository.saveAll(List.of(d1, d2));
             }
 
             if (vehicleRepository.count() == 0) {
                 Vehicle v1 = new Vehicle(); v1.setLicensePlate("ABC-123"); v1.setMake("Toyota"); v1.setModel("Camry"); v1.setYear(2019); v1.setType("SEDAN"); v1.setStatus("AVAILABLE");
-                vehicleRepository.save(v1);
 
                 Vehicle v2 = new Vehicle(); v2.setLicensePlate("XYZ-789"); v2.setMake("Honda"); v2.setModel("Civic"); v2.setYear(2020); v2.setType("SEDAN"); v2.setStatus("AVAILABLE");
-                vehicleRepository.save(v2);
+                vehicleRepository.saveAll(List.of(v1, v2));
             }
 
             if (tripRepository.count() == 0) {
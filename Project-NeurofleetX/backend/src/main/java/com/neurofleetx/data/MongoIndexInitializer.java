@@ -0,0 +1,111 @@
+package com.neurofleetx.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.result.UpdateResult;
+import com.neurofleetx.demand.DemandBucket;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.User;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.trip.TripEvent;
+
+/**
+ * Runs before the demo data loader. Backfills the GeoJSON position of drivers and
+ * vehicles saved before it existed, creates the indexes the models declare, then
+ * checks each collection really has them. Index creation is idempotent, so this is
+ * safe on every start.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoIndexInitializer implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+    private static final List<Class<?>> ENTITIES = Arrays.asList(User.class, Driver.class, Vehicle.class, Trip.class, TripEvent.class,
+            DemandBucket.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.indexes.fail-on-missing:false}")
+    private boolean failOnMissing;
+
+    @Override
+    public void run(String... args) {
+        backfillPositions(Driver.class);
+        backfillPositions(Vehicle.class);
+
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        List<String> missing = new ArrayList<>();
+        for (Class<?> type : ENTITIES) {
+            IndexOperations ops = mongoTemplate.indexOps(type);
+            List<IndexDefinition> declared = new ArrayList<>();
+            resolver.resolveIndexFor(type).forEach(declared::add);
+            for (IndexDefinition index : declared) {
+                try {
+                    ops.ensureIndex(index);
+                } catch (RuntimeException ex) {
+                    // e.g. duplicate emails block the unique index; the app still runs, just slower
+                    log.error("Could not create index {} on {}: {}", index.getIndexKeys().toJson(),
+                            mongoTemplate.getCollectionName(type), ex.getMessage());
+                }
+            }
+
+            List<IndexInfo> present = ops.getIndexInfo();
+            for (IndexDefinition index : declared) {
+                if (present.stream().noneMatch(info -> sameKeys(info, index.getIndexKeys()))) {
+                    missing.add(mongoTemplate.getCollectionName(type) + " " + index.getIndexKeys().toJson());
+                }
+            }
+        }
+
+        if (missing.isEmpty()) {
+            log.info("Mongo indexes verified for {} collections", ENTITIES.size());
+        } else if (failOnMissing) {
+            throw new IllegalStateException("Missing Mongo indexes: " + missing);
+        } else {
+            log.warn("Missing Mongo indexes, queries on them will scan: {}", missing);
+        }
+    }
+
+    // one pipeline update per collection; only touches documents with usable coordinates and no position yet
+    private void backfillPositions(Class<?> type) {
+        Document filter = new Document("position", new Document("$exists", false))
+                .append("currentLocation.latitude", new Document("$gte", -90).append("$lte", 90))
+                .append("currentLocation.longitude", new Document("$gte", -180).append("$lte", 180));
+        Document point = new Document("type", "Point")
+                .append("coordinates", Arrays.asList("$currentLocation.longitude", "$currentLocation.latitude"));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(type))
+                .updateMany(filter, List.of(new Document("$set", new Document("position", point))));
+        if (result.getModifiedCount() > 0) {
+            log.info("Backfilled GeoJSON position on {} {}", result.getModifiedCount(), mongoTemplate.getCollectionName(type));
+        }
+    }
+
+    private static boolean sameKeys(IndexInfo info, Document keys) {
+        List<IndexField> fields = info.getIndexFields();
+        if (fields.size() != keys.size()) return false;
+        int i = 0;
+        for (String key : keys.keySet()) {
+            if (!key.equals(fields.get(i++).getKey())) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package com.neurofleetx.demand;
+
+/**
+ * Additive Holt-Winters model for one cell: a level that follows the cell's recent
+ * average, plus a seasonal offset per bucket of a weekday and of a weekend day.
+ * Updated once per closed bucket, so training cost is constant per cell and never
+ * touches raw trips.
+ */
+final class CellModel {
+    final float[] seasonal;
+    float level;
+    /** Slowly decaying mean of the counts; the cell is dropped once this falls to nothing. */
+    float mass;
+    /** Counts of the last few closed buckets, oldest overwritten first. */
+    final int[] recent;
+    private int next;
+
+    CellModel(int slots, int recentBuckets) {
+        seasonal = new float[slots];
+        recent = new int[recentBuckets];
+    }
+
+    void update(int slot, int actual, double alpha, double gamma, double massDecay) {
+        float s = seasonal[slot];
+        level = (float) ((1 - alpha) * level + alpha * (actual - s));
+        seasonal[slot] = (float) (s + gamma * (actual - level - s));
+        mass = (float) (mass + massDecay * (actual - mass));
+        recent[next] = actual;
+        next = (next + 1) % recent.length;
+    }
+
+    /**
+     * Expected count for a coming bucket that falls in {@code slot}. Each slot only sees
+     * one sample a day, so it is blended with its neighbours to damp noise.
+     */
+    float forecast(int slot) {
+        int day = seasonal.length / 2, base = slot < day ? 0 : day, i = slot - base;
+        float s = 0.5f * seasonal[slot] + 0.25f * seasonal[base + (i + day - 1) % day] + 0.25f * seasonal[base + (i + 1) % day];
+        return Math.max(0f, level + s);
+    }
+
+    int recentTotal() {
+        int n = 0;
+        for (int c : recent) n += c;
+        return n;
+    }
+}
@@ -0,0 +1,49 @@
+package com.neurofleetx.demand;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Pickups requested in one grid cell during one time bucket. The id is
+ * "layout:cell:bucket", where the layout names the cell size and bucket length, so
+ * changing either starts a fresh series instead of mixing incompatible counts.
+ */
+@Document(collection = "demand_buckets")
+@CompoundIndex(name = "layout_bucket", def = "{'layout': 1, 'bucket': 1}")
+public class DemandBucket {
+    @Id
+    private String id;
+    private String layout;
+    private Long cell;
+    private Long bucket;
+    private Instant start;
+    private Double latitude; // cell centre
+    private Double longitude;
+    private Long count;
+
+    public DemandBucket() {}
+
+    static String id(String layout, long cell, long bucket) {
+        return layout + ":" + cell + ":" + bucket;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getLayout() { return layout; }
+    public void setLayout(String layout) { this.layout = layout; }
+    public Long getCell() { return cell; }
+    public void setCell(Long cell) { this.cell = cell; }
+    public Long getBucket() { return bucket; }
+    public void setBucket(Long bucket) { this.bucket = bucket; }
+    public Instant getStart() { return start; }
+    public void setStart(Instant start) { this.start = start; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public Long getCount() { return count; }
+    public void setCount(Long count) { this.count = count; }
+}
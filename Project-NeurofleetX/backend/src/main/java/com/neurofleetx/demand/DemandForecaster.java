@@ -0,0 +1,365 @@
+package com.neurofleetx.demand;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Trip;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pickup demand per grid cell and time bucket. New trips are counted in memory and the
+ * counts are $inc'ed into demand_buckets on a timer; each time a bucket closes, every
+ * cell's {@link CellModel} is trained on it and a fresh {@link DemandSnapshot} of
+ * forecasts and heatmap tiles is published. Reads only ever see the snapshot, and a
+ * restart retrains from demand_buckets, so the trips collection is read just once, to
+ * backfill a layout that has no buckets yet.
+ */
+@Component
+public class DemandForecaster {
+    private static final Logger log = LoggerFactory.getLogger(DemandForecaster.class);
+    private static final long MINUTE_MS = 60_000;
+    private static final float MIN_MASS = 1e-4f, MIN_FORECAST = 0.01f;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${demand.cell-degrees:0.01}")
+    private double cellDegrees;
+
+    @Value("${demand.bucket-minutes:15}")
+    private int bucketMinutes;
+
+    @Value("${demand.horizon-minutes:120}")
+    private int horizonMinutes;
+
+    @Value("${demand.train-days:28}")
+    private int trainDays;
+
+    @Value("${demand.time-zone:UTC}")
+    private String timeZone;
+
+    @Value("${demand.alpha:0.1}")
+    private double alpha;
+
+    @Value("${demand.gamma:0.2}")
+    private double gamma;
+
+    @Value("${demand.max-cells:20000}")
+    private int maxCells;
+
+    @Value("${demand.top-cells:200}")
+    private int topCells;
+
+    private String layout;
+    private ZoneId zone;
+    private long bucketMs;
+    private int bucketsPerDay, horizon;
+
+    /** Counts not yet written, by {@link DemandBucket} id. */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    /** Counts of buckets not yet trained on, by bucket then cell. */
+    private final Map<Long, Map<Long, Integer>> open = new ConcurrentHashMap<>();
+    /** Guarded by this. */
+    private final Map<Long, CellModel> models = new HashMap<>();
+    private volatile long trainedTo;
+    private volatile DemandSnapshot snapshot = DemandSnapshot.EMPTY;
+
+    @PostConstruct
+    void init() {
+        layout = cellDegrees + "/" + bucketMinutes;
+        zone = ZoneId.of(timeZone);
+        bucketMs = bucketMinutes * MINUTE_MS;
+        bucketsPerDay = (1440 + bucketMinutes - 1) / bucketMinutes;
+        horizon = Math.max(1, (horizonMinutes + bucketMinutes - 1) / bucketMinutes);
+        trainedTo = bucketOf(System.currentTimeMillis());
+    }
+
+    /** {@code trip} as it is after the change; only creations count as demand. */
+    public void onTransition(Trip trip, String from, String to) {
+        if (from == null) record(trip, true);
+    }
+
+    private boolean record(Trip trip, boolean live) {
+        Location p = trip.getPickupLocation();
+        if (p == null || p.getLatitude() == null || p.getLongitude() == null) return false;
+        long at = trip.getRequestedTime() == null ? System.currentTimeMillis() : trip.getRequestedTime().toEpochMilli();
+        long bucket = bucketOf(at), cell = cell(p.getLatitude(), p.getLongitude());
+        pending.merge(DemandBucket.id(layout, cell, bucket), 1L, Long::sum);
+        // late arrivals for a bucket already trained on are stored but only reach the model after a restart
+        if (live && bucket >= trainedTo) open.computeIfAbsent(bucket, b -> new ConcurrentHashMap<>()).merge(cell, 1, Integer::sum);
+        return true;
+    }
+
+    /** Writes pending counts and, once the current bucket has closed, trains on it and republishes forecasts. */
+    @Scheduled(fixedDelayString = "${demand.flush-ms:10000}")
+    public synchronized void tick() {
+        flush();
+        long now = bucketOf(System.currentTimeMillis());
+        if (now <= trainedTo) return;
+        for (long b = Math.max(trainedTo, now - trainBuckets()); b < now; b++) train(b, open.remove(b));
+        trainedTo = now;
+        open.keySet().removeIf(b -> b < now);
+        snapshot = build(now);
+        mongoTemplate.remove(Query.query(Criteria.where("layout").is(layout).and("bucket").lt(now - trainBuckets())), DemandBucket.class);
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Could not write demand buckets on shutdown", ex);
+        }
+    }
+
+    /** Retrains every cell from the stored buckets of the last train-days and publishes the first snapshot. */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restore() {
+        long now = bucketOf(System.currentTimeMillis()), first = now - trainBuckets();
+        if (!mongoTemplate.exists(Query.query(Criteria.where("layout").is(layout)), DemandBucket.class)) backfill(first);
+
+        models.clear();
+        Map<Long, Integer> counts = new HashMap<>();
+        Map<Long, Integer> current = new ConcurrentHashMap<>();
+        long at = first, docs = 0;
+        Query q = Query.query(Criteria.where("layout").is(layout).and("bucket").gte(first)).with(Sort.by("bucket"));
+        try (Stream<DemandBucket> buckets = mongoTemplate.stream(q, DemandBucket.class)) {
+            for (Iterator<DemandBucket> it = buckets.iterator(); it.hasNext(); docs++) {
+                DemandBucket b = it.next();
+                if (b.getBucket() >= now) {
+                    if (b.getBucket() == now) current.merge(b.getCell(), b.getCount().intValue(), Integer::sum);
+                    continue;
+                }
+                for (; at < b.getBucket(); at++) {
+                    train(at, counts);
+                    counts.clear();
+                }
+                counts.merge(b.getCell(), b.getCount().intValue(), Integer::sum);
+            }
+        }
+        for (; at < now; at++) {
+            train(at, counts);
+            counts.clear();
+        }
+        open.clear();
+        open.put(now, current);
+        trainedTo = now;
+        snapshot = build(now);
+        log.info("Trained demand forecasts for {} cells from {} buckets", models.size(), docs);
+    }
+
+    /** One-off rollup of recent trips into buckets, for a layout that has none yet. */
+    private void backfill(long first) {
+        Query q = Query.query(Criteria.where("requestedTime").gte(Instant.ofEpochMilli(first * bucketMs)));
+        q.fields().include("pickupLocation").include("requestedTime");
+        q.cursorBatchSize(1000);
+        long trips = 0;
+        try (Stream<Trip> s = mongoTemplate.stream(q, Trip.class)) {
+            for (Iterator<Trip> it = s.iterator(); it.hasNext(); ) if (record(it.next(), false)) trips++;
+        }
+        flush();
+        log.info("Backfilled demand buckets ({}) from {} trips", layout, trips);
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) return;
+        Map<String, Long> batch = new HashMap<>();
+        for (String id : new ArrayList<>(pending.keySet())) {
+            Long n = pending.remove(id);
+            if (n != null) batch.put(id, n);
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, DemandBucket.class);
+            batch.forEach((id, n) -> ops.upsert(Query.query(Criteria.where("_id").is(id)), increment(id, n)));
+            ops.execute();
+        } catch (RuntimeException ex) {
+            batch.forEach((id, n) -> pending.merge(id, n, Long::sum));
+            log.warn("Re-queued {} demand buckets after a failed write", batch.size(), ex);
+        }
+    }
+
+    private Update increment(String id, long n) {
+        int sep = id.lastIndexOf(':');
+        long bucket = Long.parseLong(id.substring(sep + 1));
+        long cell = Long.parseLong(id.substring(id.lastIndexOf(':', sep - 1) + 1, sep));
+        return new Update().inc("count", n)
+                .setOnInsert("layout", layout).setOnInsert("cell", cell).setOnInsert("bucket", bucket)
+                .setOnInsert("start", new Date(bucket * bucketMs))
+                .setOnInsert("latitude", latitude(cell)).setOnInsert("longitude", longitude(cell));
+    }
+
+    /** One training step: every known cell sees the bucket, with zero for cells that had no pickups. */
+    private void train(long bucket, Map<Long, Integer> counts) {
+        int slot = slot(bucket);
+        if (counts != null) {
+            for (Long cell : counts.keySet()) {
+                if (models.size() >= maxCells) break;
+                models.computeIfAbsent(cell, c -> new CellModel(bucketsPerDay * 2, Math.max(1, 60 / bucketMinutes)));
+            }
+        }
+        double massDecay = 1.0 / (bucketsPerDay * 7);
+        for (Iterator<Map.Entry<Long, CellModel>> it = models.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, CellModel> e = it.next();
+            Integer n = counts == null ? null : counts.get(e.getKey());
+            e.getValue().update(slot, n == null ? 0 : n, alpha, gamma, massDecay);
+            if (e.getValue().mass < MIN_MASS) it.remove();
+        }
+    }
+
+    private DemandSnapshot build(long from) {
+        int[] slots = new int[horizon];
+        for (int h = 0; h < horizon; h++) slots[h] = slot(from + h);
+        Map<Long, DemandSnapshot.Cell> cells = new HashMap<>();
+        models.forEach((cell, m) -> {
+            float[] cumulative = new float[horizon];
+            float sum = 0;
+            for (int h = 0; h < horizon; h++) cumulative[h] = sum += m.forecast(slots[h]);
+            int recent = m.recentTotal();
+            if (sum >= MIN_FORECAST || recent > 0) cells.put(cell, new DemandSnapshot.Cell(latitude(cell), longitude(cell), cumulative, recent));
+        });
+        return new DemandSnapshot(from, horizon, cells, topCells);
+    }
+
+    /** Expected pickups in the cell containing the point, per bucket, for roughly the next {@code minutes}. */
+    public Map<String, Object> forecast(double lat, double lon, int minutes) {
+        DemandSnapshot s = snapshot;
+        int k = buckets(minutes);
+        long cell = cell(lat, lon);
+        DemandSnapshot.Cell c = s.cell(cell);
+        List<Map<String, Object>> series = new ArrayList<>();
+        float prev = 0;
+        for (int h = 0; h < k; h++) {
+            float total = c == null ? 0 : c.cumulative[h];
+            Map<String, Object> b = new LinkedHashMap<>();
+            b.put("start", Instant.ofEpochMilli((s.bucket + h) * bucketMs));
+            b.put("predicted", total - prev);
+            series.add(b);
+            prev = total;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("latitude", latitude(cell));
+        out.put("longitude", longitude(cell));
+        out.put("cellDegrees", cellDegrees);
+        out.put("from", Instant.ofEpochMilli(s.bucket * bucketMs));
+        out.put("minutes", k * bucketMinutes);
+        out.put("predicted", prev);
+        out.put("lastHour", c == null ? 0 : c.recent);
+        out.put("buckets", series);
+        return out;
+    }
+
+    /** Cells with the most expected pickups over the next {@code minutes}, for rebalancing. */
+    public Map<String, Object> hotspots(int minutes, int limit) {
+        DemandSnapshot s = snapshot;
+        int k = buckets(minutes);
+        return view(s, k, s.top(k, Math.max(0, Math.min(limit, topCells))));
+    }
+
+    /** Heatmap cells for slippy-map tile z/x/y, with expected pickups over the next {@code minutes}. */
+    public Map<String, Object> tile(int z, int x, int y, int minutes) {
+        DemandSnapshot s = snapshot;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("z", z);
+        out.put("x", x);
+        out.put("y", y);
+        out.putAll(view(s, buckets(minutes), s.tile(z, x, y)));
+        return out;
+    }
+
+    public Map<String, Object> status() {
+        DemandSnapshot s = snapshot;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("layout", layout);
+        out.put("cellDegrees", cellDegrees);
+        out.put("bucketMinutes", bucketMinutes);
+        out.put("horizonMinutes", horizon * bucketMinutes);
+        synchronized (this) {
+            out.put("trainedCells", models.size());
+        }
+        out.put("forecastCells", s.size());
+        out.put("trainedThrough", Instant.ofEpochMilli(trainedTo * bucketMs));
+        out.put("builtAt", s.builtAt);
+        out.put("pendingBuckets", pending.size());
+        return out;
+    }
+
+    private Map<String, Object> view(DemandSnapshot s, int k, List<DemandSnapshot.Cell> cells) {
+        List<Map<String, Object>> list = new ArrayList<>(cells.size());
+        for (DemandSnapshot.Cell c : cells) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("latitude", c.lat);
+            m.put("longitude", c.lon);
+            m.put("predicted", c.predicted(k));
+            m.put("lastHour", c.recent);
+            list.add(m);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("from", Instant.ofEpochMilli(s.bucket * bucketMs));
+        out.put("minutes", k * bucketMinutes);
+        out.put("cellDegrees", cellDegrees);
+        out.put("cells", list);
+        return out;
+    }
+
+    private int buckets(int minutes) {
+        return Math.max(1, Math.min(horizon, (minutes + bucketMinutes - 1) / bucketMinutes));
+    }
+
+    private int trainBuckets() {
+        return trainDays * bucketsPerDay;
+    }
+
+    private long bucketOf(long millis) {
+        return Math.floorDiv(millis, bucketMs);
+    }
+
+    /** Time-of-day slot in the configured zone, with weekends profiled separately from weekdays. */
+    private int slot(long bucket) {
+        ZonedDateTime t = Instant.ofEpochMilli(bucket * bucketMs).atZone(zone);
+        int slot = Math.min(bucketsPerDay - 1, (t.getHour() * 60 + t.getMinute()) / bucketMinutes);
+        DayOfWeek day = t.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY ? slot + bucketsPerDay : slot;
+    }
+
+    private long cell(double lat, double lon) {
+        return ((long) Math.floor(lat / cellDegrees) << 32) ^ ((long) Math.floor(lon / cellDegrees) & 0xffffffffL);
+    }
+
+    private double latitude(long cell) {
+        return ((cell >> 32) + 0.5) * cellDegrees;
+    }
+
+    private double longitude(long cell) {
+        return ((int) cell + 0.5) * cellDegrees;
+    }
+}
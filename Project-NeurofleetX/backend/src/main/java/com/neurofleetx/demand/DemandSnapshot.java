@@ -0,0 +1,108 @@
+package com.neurofleetx.demand;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forecasts for every live cell as of one bucket, built after each training step and
+ * then only read. Cells are pre-sorted per horizon and grouped into slippy-map tiles at
+ * {@link #TILE_ZOOM}, so hotspot and heatmap queries are lookups, not scans.
+ */
+final class DemandSnapshot {
+    static final int TILE_ZOOM = 12;
+    static final DemandSnapshot EMPTY = new DemandSnapshot(0, 1, Collections.emptyMap(), 0);
+
+    static final class Cell {
+        final double lat, lon;
+        /** Expected pickups over the first 1, 2, ... buckets from the snapshot's bucket. */
+        final float[] cumulative;
+        final int recent;
+
+        Cell(double lat, double lon, float[] cumulative, int recent) {
+            this.lat = lat;
+            this.lon = lon;
+            this.cumulative = cumulative;
+            this.recent = recent;
+        }
+
+        float predicted(int buckets) {
+            return cumulative[buckets - 1];
+        }
+    }
+
+    final long bucket;
+    final int horizon;
+    final Instant builtAt = Instant.now();
+    private final Map<Long, Cell> cells;
+    private final Map<Long, List<Cell>> tiles = new HashMap<>();
+    private final List<List<Cell>> top = new ArrayList<>();
+
+    DemandSnapshot(long bucket, int horizon, Map<Long, Cell> cells, int topCells) {
+        this.bucket = bucket;
+        this.horizon = horizon;
+        this.cells = cells;
+        for (Cell c : cells.values()) {
+            tiles.computeIfAbsent(key(tileX(c.lon, TILE_ZOOM), tileY(c.lat, TILE_ZOOM)), k -> new ArrayList<>()).add(c);
+        }
+        for (int k = 1; k <= horizon && topCells > 0; k++) {
+            int buckets = k;
+            List<Cell> ranked = new ArrayList<>();
+            for (Cell c : cells.values()) if (c.predicted(buckets) > 0) ranked.add(c);
+            ranked.sort(Comparator.comparingDouble((Cell c) -> c.predicted(buckets)).reversed());
+            top.add(ranked.size() > topCells ? new ArrayList<>(ranked.subList(0, topCells)) : ranked);
+        }
+    }
+
+    int size() {
+        return cells.size();
+    }
+
+    Cell cell(long key) {
+        return cells.get(key);
+    }
+
+    List<Cell> top(int buckets, int limit) {
+        if (top.isEmpty()) return Collections.emptyList();
+        List<Cell> ranked = top.get(buckets - 1);
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    /** Cells whose centre lies in tile z/x/y. */
+    List<Cell> tile(int z, int x, int y) {
+        List<Cell> out = new ArrayList<>();
+        if (z >= TILE_ZOOM) {
+            int shift = z - TILE_ZOOM;
+            for (Cell c : tiles.getOrDefault(key(x >> shift, y >> shift), Collections.emptyList())) {
+                if (tileX(c.lon, z) == x && tileY(c.lat, z) == y) out.add(c);
+            }
+        } else {
+            // walk the occupied tiles rather than every child tile, which grows as 4^(zoom difference)
+            int shift = TILE_ZOOM - z;
+            tiles.forEach((k, in) -> {
+                if ((int) (k >> 32) >> shift == x && (int) (long) k >> shift == y) out.addAll(in);
+            });
+        }
+        return out;
+    }
+
+    static int tileX(double lon, int z) {
+        int n = 1 << z;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor((lon + 180) / 360 * n)));
+    }
+
+    static int tileY(double lat, int z) {
+        int n = 1 << z;
+        double r = Math.toRadians(lat);
+        double y = (1 - Math.log(Math.tan(r) + 1 / Math.cos(r)) / Math.PI) / 2 * n;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(y)));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
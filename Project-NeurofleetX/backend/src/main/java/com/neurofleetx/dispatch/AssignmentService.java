@@ -0,0 +1,133 @@
+package com.neurofleetx.dispatch;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripEventLog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Claims a driver, a vehicle and a trip with one conditional findAndModify each, so
+ * a resource only changes hands while it is still in the expected state. Standalone
+ * Mongo has no multi-document transactions, so a failed later step undoes the
+ * earlier claims instead.
+ */
+@Service
+public class AssignmentService {
+    public enum Outcome { ASSIGNED, TRIP_NOT_FOUND, TRIP_NOT_REQUESTED, DRIVER_UNAVAILABLE, VEHICLE_UNAVAILABLE }
+
+    public static final class Result {
+        private final Outcome outcome;
+        private final Trip trip;
+
+        Result(Outcome outcome, Trip trip) {
+            this.outcome = outcome;
+            this.trip = trip;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public Trip getTrip() { return trip; }
+    }
+
+    private static final FindAndModifyOptions RETURN_OLD = FindAndModifyOptions.options().returnNew(false);
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    public Result assign(String tripId, String driverId, String vehicleId) {
+        Result result = claim(tripId, driverId, vehicleId);
+        meterRegistry.counter("fleet.assignments", "path", "api", "outcome", result.getOutcome().name()).increment();
+        return result;
+    }
+
+    private Result claim(String tripId, String driverId, String vehicleId) {
+        Driver driver = claimDriver(driverId, vehicleId);
+        if (driver == null) return new Result(Outcome.DRIVER_UNAVAILABLE, null);
+
+        Vehicle vehicle = claimVehicle(vehicleId, driverId);
+        if (vehicle == null) {
+            release(driver);
+            return new Result(Outcome.VEHICLE_UNAVAILABLE, null);
+        }
+
+        Trip trip = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(tripId).and("status").is("REQUESTED")),
+                new Update().set("status", "ASSIGNED").set("driverId", driverId).set("vehicleId", vehicleId),
+                RETURN_NEW, Trip.class);
+        if (trip == null) {
+            release(driver);
+            release(vehicle);
+            boolean exists = mongoTemplate.exists(Query.query(Criteria.where("id").is(tripId)), Trip.class);
+            return new Result(exists ? Outcome.TRIP_NOT_REQUESTED : Outcome.TRIP_NOT_FOUND, null);
+        }
+        entityCaches.evict(EntityCacheConfig.TRIPS, tripId);
+        tripEventLog.append(trip, "REQUESTED", "ASSIGNED");
+
+        fleetIndex.drivers().setAvailable(driverId, false);
+        fleetIndex.vehicles().setAvailable(vehicleId, false);
+        fleetEventBus.publish("DRIVER", driverId, "BUSY", null, null);
+        fleetEventBus.publish("VEHICLE", vehicleId, "BUSY", null, null);
+        fleetEventBus.publish("TRIP", tripId, "ASSIGNED", null, null);
+        return new Result(Outcome.ASSIGNED, trip);
+    }
+
+    /** Marks the driver BUSY with the vehicle if it is still AVAILABLE; returns it as it was, or null. */
+    Driver claimDriver(String driverId, String vehicleId) {
+        Driver driver = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(driverId).and("status").is("AVAILABLE")),
+                new Update().set("status", "BUSY").set("vehicleId", vehicleId),
+                RETURN_OLD, Driver.class);
+        if (driver != null) entityCaches.evict(EntityCacheConfig.DRIVERS, driverId);
+        return driver;
+    }
+
+    Vehicle claimVehicle(String vehicleId, String driverId) {
+        Vehicle vehicle = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(vehicleId).and("status").is("AVAILABLE")),
+                new Update().set("status", "BUSY").set("driverId", driverId),
+                RETURN_OLD, Vehicle.class);
+        if (vehicle != null) entityCaches.evict(EntityCacheConfig.VEHICLES, vehicleId);
+        return vehicle;
+    }
+
+    // restore the pre-claim document state, but only if nobody moved it on since
+    void release(Driver before) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(before.getId()).and("status").is("BUSY")),
+                new Update().set("status", "AVAILABLE").set("vehicleId", before.getVehicleId()), Driver.class);
+        entityCaches.evict(EntityCacheConfig.DRIVERS, before.getId());
+    }
+
+    void release(Vehicle before) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(before.getId()).and("status").is("BUSY")),
+                new Update().set("status", "AVAILABLE").set("driverId", before.getDriverId()), Vehicle.class);
+        entityCaches.evict(EntityCacheConfig.VEHICLES, before.getId());
+    }
+}
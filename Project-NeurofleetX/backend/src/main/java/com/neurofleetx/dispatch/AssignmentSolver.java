@@ -0,0 +1,69 @@
+package com.neurofleetx.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost bipartite matching (Hungarian algorithm with potentials) over a dense
+ * primitive cost matrix. Runs in O(n^2 * m) for n rows and m columns, n <= m;
+ * wider-than-tall inputs are transposed first. Costs must be finite.
+ */
+public final class AssignmentSolver {
+    private AssignmentSolver() {}
+
+    /** Column chosen for each row, or -1 when the row is left unmatched. */
+    public static int[] solve(double[][] cost) {
+        int n = cost.length;
+        int m = n == 0 ? 0 : cost[0].length;
+        int[] rowToCol = new int[n];
+        Arrays.fill(rowToCol, -1);
+        if (n == 0 || m == 0) return rowToCol;
+
+        if (n > m) {
+            double[][] t = new double[m][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < m; j++)
+                    t[j][i] = cost[i][j];
+            int[] colToRow = solve(t);
+            for (int j = 0; j < m; j++)
+                if (colToRow[j] >= 0) rowToCol[colToRow[j]] = j;
+            return rowToCol;
+        }
+
+        double[] u = new double[n + 1], v = new double[m + 1], minv = new double[m + 1];
+        int[] p = new int[m + 1], way = new int[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0], j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                double[] row = cost[i0 - 1];
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = row[j - 1] - u[i0] - v[j];
+                    if (cur < minv[j]) { minv[j] = cur; way[j] = j0; }
+                    if (minv[j] < delta) { delta = minv[j]; j1 = j; }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) { u[p[j]] += delta; v[j] -= delta; }
+                    else minv[j] -= delta;
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        for (int j = 1; j <= m; j++)
+            if (p[j] != 0) rowToCol[p[j] - 1] = j - 1;
+        return rowToCol;
+    }
+}
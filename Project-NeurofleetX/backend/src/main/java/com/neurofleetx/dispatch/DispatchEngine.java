@@ -0,0 +1,421 @@
+package com.neurofleetx.dispatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.repository.TripRepository;
+import com.neurofleetx.routing.RoutingService;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripEventLog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Collects REQUESTED trips for one window and matches the whole batch at once:
+ * trips x candidate drivers and trips x candidate vehicles are each solved as a
+ * min-total-pickup-distance assignment. The matched drivers, then vehicles, are claimed
+ * with one unordered bulk of conditional AVAILABLE -> BUSY updates each, as
+ * {@link AssignmentService} claims a single pair, and tagged with a per-window token so
+ * the claims that held can be read back. Trips whose driver and vehicle were both claimed
+ * are then assigned with one bulk update. Trips left unmatched, or whose driver or
+ * vehicle was taken meanwhile, are retried in the next window.
+ * Costs are scored against one {@link FleetTable} snapshot per window, so the inner
+ * loop reads primitive arrays by slot rather than looking members up by id.
+ * Candidates are shortlisted by straight-line distance and, once the road graph is
+ * loaded, ranked by drive time to the pickup.
+ */
+@Component
+public class DispatchEngine {
+    private static final Logger log = LoggerFactory.getLogger(DispatchEngine.class);
+
+    // keeps unlocated members usable without letting them beat any located one
+    private static final double UNLOCATED_COST = 1e6;
+
+    // field a window's claims are tagged with on drivers and vehicles; cleared when the window ends
+    private static final String CLAIM = "dispatchClaim";
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Value("${dispatch.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dispatch.batch.max-trips:200}")
+    private int maxTrips;
+
+    @Value("${dispatch.batch.candidates:6}")
+    private int candidates;
+
+    private final ConcurrentLinkedQueue<Trip> pending = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) pending.addAll(tripRepository.findByStatus("REQUESTED"));
+    }
+
+    public void submit(Trip trip) {
+        if (enabled && "REQUESTED".equals(trip.getStatus())) pending.add(trip);
+    }
+
+    /** Drops a trip that was assigned or cancelled through another path. */
+    public void withdraw(String tripId) {
+        pending.removeIf(t -> t.getId().equals(tripId));
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.batch.window-ms:500}")
+    public void dispatch() {
+        if (!enabled || pending.isEmpty()) return;
+        List<Trip> batch = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (Trip t; batch.size() < maxTrips && (t = pending.poll()) != null; ) {
+            if (ids.add(t.getId())) batch.add(t);
+        }
+        try {
+            pending.addAll(meterRegistry.timer("dispatch.window").record(() -> assign(batch)));
+        } catch (RuntimeException ex) {
+            log.warn("Dispatch window failed for {} trips, retrying next window", batch.size(), ex);
+            pending.addAll(batch);
+        }
+    }
+
+    /**
+     * Best available driver and vehicle for one pickup, scored like a batch of one;
+     * empty when either has no candidate.
+     */
+    public Map<String, Object> suggest(Location pickup) {
+        boolean located = pickup != null && pickup.getLatitude() != null && pickup.getLongitude() != null;
+        double[] lat = { located ? pickup.getLatitude() : Double.NaN }, lon = { located ? pickup.getLongitude() : 0 };
+        FleetTable.Snapshot driverTable = fleetIndex.drivers().table().snapshot();
+        FleetTable.Snapshot vehicleTable = fleetIndex.vehicles().table().snapshot();
+        int[] drivers = candidates(fleetIndex.drivers(), driverTable, lat, lon);
+        int[] vehicles = candidates(fleetIndex.vehicles(), vehicleTable, lat, lon);
+        if (drivers.length == 0 || vehicles.length == 0) return Map.of();
+
+        boolean routed = routingService.ready();
+        double[] driverCost = costs(driverTable, drivers, lat, lon, routed)[0];
+        int d = cheapest(driverCost), v = cheapest(costs(vehicleTable, vehicles, lat, lon, routed)[0]);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("driverId", driverTable.id(drivers[d]));
+        out.put("vehicleId", vehicleTable.id(vehicles[v]));
+        if (routed && located && driverCost[d] < UNLOCATED_COST) out.put("pickupEtaSeconds", Math.round(driverCost[d]));
+        return out;
+    }
+
+    /** Returns the trips that were not matched and are still REQUESTED. */
+    List<Trip> assign(List<Trip> batch) {
+        int n = batch.size();
+        double[] lat = new double[n], lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            Location p = batch.get(i).getPickupLocation();
+            if (p != null && p.getLatitude() != null && p.getLongitude() != null) {
+                lat[i] = p.getLatitude();
+                lon[i] = p.getLongitude();
+            } else {
+                lat[i] = Double.NaN;
+            }
+        }
+
+        FleetTable.Snapshot driverTable = fleetIndex.drivers().table().snapshot();
+        FleetTable.Snapshot vehicleTable = fleetIndex.vehicles().table().snapshot();
+        int[] drivers = candidates(fleetIndex.drivers(), driverTable, lat, lon);
+        int[] vehicles = candidates(fleetIndex.vehicles(), vehicleTable, lat, lon);
+        boolean routed = routingService.ready();
+        int[] driverFor = AssignmentSolver.solve(costs(driverTable, drivers, lat, lon, routed));
+        int[] vehicleFor = AssignmentSolver.solve(costs(vehicleTable, vehicles, lat, lon, routed));
+
+        List<Trip> matched = new ArrayList<>(), unmatched = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Trip t = batch.get(i);
+            if (driverFor[i] < 0 || vehicleFor[i] < 0) { unmatched.add(t); continue; }
+            t.setDriverId(driverTable.id(drivers[driverFor[i]]));
+            t.setVehicleId(vehicleTable.id(vehicles[vehicleFor[i]]));
+            fleetIndex.drivers().setAvailable(t.getDriverId(), false);
+            fleetIndex.vehicles().setAvailable(t.getVehicleId(), false);
+            matched.add(t);
+        }
+        count("NO_CANDIDATE", unmatched.size());
+        if (matched.isEmpty()) return unmatched;
+        try {
+            unmatched.addAll(write(matched));
+        } catch (RuntimeException ex) {
+            for (Trip t : matched) {
+                fleetIndex.drivers().setAvailable(t.getDriverId(), true);
+                fleetIndex.vehicles().setAvailable(t.getVehicleId(), true);
+            }
+            throw ex;
+        }
+        return unmatched;
+    }
+
+    /**
+     * Claims, then assigns; returns the trips that are still REQUESTED and should be retried.
+     * If anything throws part-way, every trip this window may have assigned is put back to
+     * REQUESTED and every driver and vehicle carrying its token is released, without relying
+     * on any read-back having succeeded.
+     */
+    private List<Trip> write(List<Trip> matched) {
+        String token = UUID.randomUUID().toString();
+        Map<String, String> vehicleOf = new HashMap<>(), driverOf = new HashMap<>();
+        List<Trip> retry = new ArrayList<>();
+        boolean settled = false;
+        try {
+            // pairings before the claim, so a released driver or vehicle gets its old one back
+            Query dq = Query.query(Criteria.where("id").in(matched.stream().map(Trip::getDriverId).toList()));
+            dq.fields().include("vehicleId");
+            mongoTemplate.find(dq, Driver.class).forEach(d -> vehicleOf.put(d.getId(), d.getVehicleId()));
+            Query vq = Query.query(Criteria.where("id").in(matched.stream().map(Trip::getVehicleId).toList()));
+            vq.fields().include("driverId");
+            mongoTemplate.find(vq, Vehicle.class).forEach(v -> driverOf.put(v.getId(), v.getDriverId()));
+
+            Set<String> drivers = claim(Driver.class, token, matched, Trip::getDriverId, "vehicleId", Trip::getVehicleId, Driver::getId);
+            Set<String> vehicles = claim(Vehicle.class, token, matched, Trip::getVehicleId, "driverId", Trip::getDriverId, Vehicle::getId);
+            List<Trip> claimed = new ArrayList<>();
+            for (Trip t : matched) {
+                boolean d = drivers.contains(t.getDriverId()), v = vehicles.contains(t.getVehicleId());
+                if (d && v) { claimed.add(t); continue; }
+                // the index was stale or another path got there first; whichever claim failed stays unavailable
+                count(d ? "VEHICLE_UNAVAILABLE" : "DRIVER_UNAVAILABLE", 1);
+                if (d) fleetIndex.drivers().setAvailable(t.getDriverId(), true);
+                if (v) fleetIndex.vehicles().setAvailable(t.getVehicleId(), true);
+                retry.add(t);
+            }
+            release(token, retry, vehicleOf, driverOf);
+            if (claimed.isEmpty()) {
+                settled = true;
+                return unassigned(retry);
+            }
+
+            BulkOperations trips = mongoTemplate.bulkOps(BulkMode.UNORDERED, Trip.class);
+            for (Trip t : claimed) {
+                trips.updateOne(Query.query(Criteria.where("id").is(t.getId()).and("status").is("REQUESTED")),
+                        new Update().set("status", "ASSIGNED").set("driverId", t.getDriverId()).set("vehicleId", t.getVehicleId()));
+            }
+            BulkWriteResult result = null;
+            try {
+                result = trips.execute();
+            } catch (RuntimeException ex) {
+                log.warn("Bulk trip assignment failed, checking which of {} trips were written", claimed.size(), ex);
+            }
+            claimed.forEach(t -> entityCaches.evict(EntityCacheConfig.TRIPS, t.getId()));
+
+            // a trip cancelled or assigned elsewhere since it was queued hands its driver and vehicle back
+            List<Trip> won = claimed;
+            if (result == null || result.getMatchedCount() < claimed.size()) {
+                Query q = Query.query(Criteria.where("id").in(claimed.stream().map(Trip::getId).toList()));
+                q.fields().include("driverId").include("status");
+                Map<String, Trip> current = new HashMap<>();
+                mongoTemplate.find(q, Trip.class).forEach(t -> current.put(t.getId(), t));
+                won = new ArrayList<>();
+                List<Trip> lost = new ArrayList<>();
+                int notRequested = 0;
+                for (Trip t : claimed) {
+                    Trip now = current.get(t.getId());
+                    if (now != null && t.getDriverId().equals(now.getDriverId()) && "ASSIGNED".equals(now.getStatus())) {
+                        won.add(t);
+                        continue;
+                    }
+                    lost.add(t);
+                    fleetIndex.drivers().setAvailable(t.getDriverId(), true);
+                    fleetIndex.vehicles().setAvailable(t.getVehicleId(), true);
+                    if (now != null && "REQUESTED".equals(now.getStatus())) retry.add(t);
+                    else notRequested++;
+                }
+                release(token, lost, vehicleOf, driverOf);
+                count("TRIP_NOT_REQUESTED", notRequested);
+            }
+            settled = true;
+
+            count("ASSIGNED", won.size());
+            for (Trip t : won) {
+                fleetEventBus.publish("DRIVER", t.getDriverId(), "BUSY", null, null);
+                fleetEventBus.publish("VEHICLE", t.getVehicleId(), "BUSY", null, null);
+                fleetEventBus.publish("TRIP", t.getId(), "ASSIGNED", null, null);
+                tripEventLog.append(t, "REQUESTED", "ASSIGNED");
+            }
+            return unassigned(retry);
+        } finally {
+            if (!settled) compensate(token, matched, vehicleOf, driverOf);
+            clearClaims(token);
+        }
+    }
+
+    /**
+     * One unordered bulk of conditional AVAILABLE -> BUSY claims, each tagged with the window's
+     * token, then one read of which documents carry the token: those are the claims that held.
+     */
+    private <T> Set<String> claim(Class<T> type, String token, List<Trip> trips, Function<Trip, String> id,
+                                  String linkField, Function<Trip, String> link, Function<T, String> idOf) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, type);
+        for (Trip t : trips) {
+            ops.updateOne(Query.query(Criteria.where("id").is(id.apply(t)).and("status").is("AVAILABLE")),
+                    new Update().set("status", "BUSY").set(linkField, link.apply(t)).set(CLAIM, token));
+        }
+        ops.execute();
+        Query q = Query.query(Criteria.where(CLAIM).is(token));
+        q.fields().include("id");
+        Set<String> held = new HashSet<>();
+        mongoTemplate.find(q, type).forEach(doc -> held.add(idOf.apply(doc)));
+        String cache = type == Driver.class ? EntityCacheConfig.DRIVERS : EntityCacheConfig.VEHICLES;
+        held.forEach(h -> entityCaches.evict(cache, h));
+        return held;
+    }
+
+    // hands back what this window claimed for these trips; the token guard skips anything it never got
+    private void release(String token, List<Trip> trips, Map<String, String> vehicleOf, Map<String, String> driverOf) {
+        if (trips.isEmpty()) return;
+        BulkOperations drivers = mongoTemplate.bulkOps(BulkMode.UNORDERED, Driver.class);
+        BulkOperations vehicles = mongoTemplate.bulkOps(BulkMode.UNORDERED, Vehicle.class);
+        for (Trip t : trips) {
+            drivers.updateOne(Query.query(Criteria.where("id").is(t.getDriverId()).and("status").is("BUSY").and(CLAIM).is(token)),
+                    new Update().set("status", "AVAILABLE").set("vehicleId", vehicleOf.get(t.getDriverId())).unset(CLAIM));
+            vehicles.updateOne(Query.query(Criteria.where("id").is(t.getVehicleId()).and("status").is("BUSY").and(CLAIM).is(token)),
+                    new Update().set("status", "AVAILABLE").set("driverId", driverOf.get(t.getVehicleId())).unset(CLAIM));
+        }
+        drivers.execute();
+        vehicles.execute();
+        for (Trip t : trips) {
+            entityCaches.evict(EntityCacheConfig.DRIVERS, t.getDriverId());
+            entityCaches.evict(EntityCacheConfig.VEHICLES, t.getVehicleId());
+        }
+    }
+
+    // the window failed part-way: undo any trip it may have assigned, then release everything it claimed
+    private void compensate(String token, List<Trip> matched, Map<String, String> vehicleOf, Map<String, String> driverOf) {
+        try {
+            BulkOperations trips = mongoTemplate.bulkOps(BulkMode.UNORDERED, Trip.class);
+            for (Trip t : matched) {
+                trips.updateOne(Query.query(Criteria.where("id").is(t.getId()).and("status").is("ASSIGNED").and("driverId").is(t.getDriverId())),
+                        new Update().set("status", "REQUESTED").unset("driverId").unset("vehicleId"));
+            }
+            trips.execute();
+            matched.forEach(t -> entityCaches.evict(EntityCacheConfig.TRIPS, t.getId()));
+        } catch (RuntimeException ex) {
+            log.error("Could not reset trips of a failed dispatch window {}", token, ex);
+        }
+        try {
+            release(token, matched, vehicleOf, driverOf);
+        } catch (RuntimeException ex) {
+            log.error("Could not release drivers and vehicles claimed by dispatch window {}; they stay BUSY", token, ex);
+        }
+    }
+
+    private void clearClaims(String token) {
+        Query q = Query.query(Criteria.where(CLAIM).is(token));
+        try {
+            mongoTemplate.updateMulti(q, new Update().unset(CLAIM), Driver.class);
+            mongoTemplate.updateMulti(q, new Update().unset(CLAIM), Vehicle.class);
+        } catch (RuntimeException ex) {
+            log.warn("Could not clear dispatch claim {}", token, ex);
+        }
+    }
+
+    private static List<Trip> unassigned(List<Trip> trips) {
+        trips.forEach(DispatchEngine::unassigned);
+        return trips;
+    }
+
+    private static Trip unassigned(Trip t) {
+        t.setDriverId(null);
+        t.setVehicleId(null);
+        return t;
+    }
+
+    private void count(String outcome, int n) {
+        if (n > 0) meterRegistry.counter("fleet.assignments", "path", "batch", "outcome", outcome).increment(n);
+    }
+
+    // slots of the union of each trip's k nearest available members; members newer than the snapshot wait a window
+    private int[] candidates(SpatialIndex index, FleetTable.Snapshot table, double[] lat, double[] lon) {
+        boolean[] taken = new boolean[table.size()];
+        int[] slots = new int[Math.min(table.size(), lat.length * candidates)];
+        int n = 0;
+        for (int i = 0; i < lat.length && n < slots.length; i++) {
+            boolean located = !Double.isNaN(lat[i]);
+            for (SpatialIndex.Hit h : index.nearest(located ? lat[i] : 0, located ? lon[i] : 0, candidates)) {
+                int s = table.slot(h.getId());
+                if (s >= 0 && !taken[s]) {
+                    taken[s] = true;
+                    slots[n++] = s;
+                }
+            }
+        }
+        return Arrays.copyOf(slots, n);
+    }
+
+    // drive seconds from each candidate to each pickup when routed, else straight-line km
+    private double[][] costs(FleetTable.Snapshot table, int[] slots, double[] lat, double[] lon, boolean routed) {
+        double[] memberLat = new double[slots.length], memberLon = new double[slots.length];
+        for (int j = 0; j < slots.length; j++) {
+            memberLat[j] = table.lat[slots[j]];
+            memberLon[j] = table.lon[slots[j]];
+        }
+        double[][] eta = routed ? routingService.etaSeconds(memberLat, memberLon, lat, lon) : null;
+        double[][] cost = new double[lat.length][slots.length];
+        for (int i = 0; i < lat.length; i++) {
+            if (Double.isNaN(lat[i])) continue; // no pickup point: every candidate is equally good
+            for (int j = 0; j < slots.length; j++) {
+                if (Double.isNaN(memberLat[j])) cost[i][j] = UNLOCATED_COST;
+                else cost[i][j] = eta != null ? eta[j][i] : Geo.haversineKm(lat[i], lon[i], memberLat[j], memberLon[j]);
+            }
+        }
+        return cost;
+    }
+
+    private static int cheapest(double[] cost) {
+        int best = 0;
+        for (int j = 1; j < cost.length; j++) if (cost[j] < cost[best]) best = j;
+        return best;
+    }
+}
@@ -0,0 +1,61 @@
+package com.neurofleetx.dispatch;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.FleetStatus;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.model.VehicleType;
+import com.neurofleetx.repository.DriverRepository;
+import com.neurofleetx.repository.VehicleRepository;
+
+/**
+ * In-process spatial view of the fleet used by dispatch. Loaded once at startup and
+ * then kept current by the controllers that change driver/vehicle position or status,
+ * so nearest-candidate queries never touch Mongo.
+ */
+@Component
+public class FleetIndex {
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    private final SpatialIndex drivers;
+    private final SpatialIndex vehicles;
+
+    public FleetIndex(@Value("${dispatch.index.cell-degrees:0.01}") double cellDegrees) {
+        this.drivers = new SpatialIndex(cellDegrees);
+        this.vehicles = new SpatialIndex(cellDegrees);
+    }
+
+    // runs after the CommandLineRunners, so freshly seeded data is picked up
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        drivers.clear();
+        vehicles.clear();
+        driverRepository.findAll().forEach(this::track);
+        vehicleRepository.findAll().forEach(this::track);
+    }
+
+    public SpatialIndex drivers() { return drivers; }
+    public SpatialIndex vehicles() { return vehicles; }
+
+    public void track(Driver d) {
+        Location l = d.getCurrentLocation();
+        drivers.update(d.getId(), l == null ? null : l.getLatitude(), l == null ? null : l.getLongitude(),
+                FleetStatus.of(d.getStatus()), null);
+    }
+
+    public void track(Vehicle v) {
+        Location l = v.getCurrentLocation();
+        vehicles.update(v.getId(), l == null ? null : l.getLatitude(), l == null ? null : l.getLongitude(),
+                FleetStatus.of(v.getStatus()), VehicleType.of(v.getType()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.neurofleetx.dispatch;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.neurofleetx.model.FleetStatus;
+import com.neurofleetx.model.VehicleType;
+
+/**
+ * Struct-of-arrays view of one entity type: ids, positions, status and vehicle type
+ * live in parallel primitive arrays indexed by slot. Writers update the working arrays
+ * in place under the table's lock and bump a version. Readers take a {@link Snapshot},
+ * which is only copied when the version moved since the last one was published, so a
+ * dispatch window costs at most one array copy however many pings arrived meanwhile,
+ * and repeated reads with no writes in between are free and lock-free.
+ */
+public class FleetTable {
+    /** Sentinel type code for members without one (drivers). */
+    public static final byte NO_TYPE = -1;
+
+    /** Immutable copy of the table at one version; never mutate the arrays. */
+    public static final class Snapshot {
+        final long version;
+        final int size;
+        final String[] ids;
+        final double[] lat, lon;
+        final byte[] status, type;
+        private final Map<String, Integer> slots;
+
+        Snapshot(long version, int size, String[] ids, double[] lat, double[] lon, byte[] status, byte[] type,
+                 Map<String, Integer> slots) {
+            this.version = version;
+            this.size = size;
+            this.ids = ids;
+            this.lat = lat;
+            this.lon = lon;
+            this.status = status;
+            this.type = type;
+            this.slots = slots;
+        }
+
+        public long version() { return version; }
+        public int size() { return size; }
+
+        /** Slot of {@code id}, or -1 if it is not in this snapshot. */
+        public int slot(String id) {
+            Integer s = slots.get(id);
+            return s == null ? -1 : s;
+        }
+
+        public String id(int slot) { return ids[slot]; }
+        public boolean located(int slot) { return !Double.isNaN(lat[slot]); }
+        public double lat(int slot) { return lat[slot]; }
+        public double lon(int slot) { return lon[slot]; }
+        public FleetStatus status(int slot) { return FleetStatus.of(status[slot]); }
+        public boolean available(int slot) { return status[slot] == AVAILABLE; }
+        public VehicleType type(int slot) { return type[slot] == NO_TYPE ? null : VehicleType.of(type[slot]); }
+
+        /** Distance from the slot's last known position, infinite if it has none. */
+        public double distanceKm(int slot, double fromLat, double fromLon) {
+            return located(slot) ? Geo.haversineKm(fromLat, fromLon, lat[slot], lon[slot]) : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private static final byte AVAILABLE = (byte) FleetStatus.AVAILABLE.ordinal();
+    private static final byte UNKNOWN = (byte) FleetStatus.UNKNOWN.ordinal();
+
+    // working arrays, guarded by this
+    private String[] ids = new String[16];
+    private double[] lat = new double[16], lon = new double[16];
+    private byte[] status = new byte[16], type = new byte[16];
+    private int size;
+    // handed to snapshots as is; copied before the next membership change once shared
+    private Map<String, Integer> slots = new HashMap<>();
+    private boolean slotsShared;
+
+    private volatile long version;
+    private volatile Snapshot published = new Snapshot(0, 0, new String[0], new double[0], new double[0],
+            new byte[0], new byte[0], Collections.emptyMap());
+
+    public synchronized void put(String id, Double la, Double lo, FleetStatus st, VehicleType vt) {
+        int s = slotFor(id);
+        lat[s] = la == null || lo == null ? Double.NaN : la;
+        lon[s] = la == null || lo == null ? Double.NaN : lo;
+        status[s] = (byte) (st == null ? FleetStatus.UNKNOWN : st).ordinal();
+        type[s] = vt == null ? NO_TYPE : (byte) vt.ordinal();
+        version++;
+    }
+
+    public synchronized void move(String id, double la, double lo) {
+        int s = slotFor(id);
+        lat[s] = la;
+        lon[s] = lo;
+        version++;
+    }
+
+    public synchronized void setStatus(String id, FleetStatus st) {
+        int s = slotFor(id);
+        status[s] = (byte) st.ordinal();
+        version++;
+    }
+
+    /** Moves the last slot into the removed one, so slots stay dense. */
+    public synchronized void remove(String id) {
+        Integer s = slots.get(id);
+        if (s == null) return;
+        Map<String, Integer> next = writableSlots();
+        next.remove(id);
+        int last = --size;
+        if (s != last) {
+            ids[s] = ids[last];
+            lat[s] = lat[last];
+            lon[s] = lon[last];
+            status[s] = status[last];
+            type[s] = type[last];
+            next.put(ids[s], s);
+        }
+        ids[last] = null;
+        version++;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(ids, 0, size, null);
+        size = 0;
+        slots = new HashMap<>();
+        slotsShared = false;
+        version++;
+    }
+
+    public synchronized int size() { return size; }
+
+    /** The current state; copies the working arrays only if something changed since the last call. */
+    public Snapshot snapshot() {
+        Snapshot s = published;
+        if (s.version == version) return s;
+        synchronized (this) {
+            s = published;
+            if (s.version != version) {
+                s = new Snapshot(version, size, Arrays.copyOf(ids, size), Arrays.copyOf(lat, size), Arrays.copyOf(lon, size),
+                        Arrays.copyOf(status, size), Arrays.copyOf(type, size), slots);
+                published = s;
+                slotsShared = true;
+            }
+            return s;
+        }
+    }
+
+    // new members start unlocated with unknown status
+    private int slotFor(String id) {
+        Integer s = slots.get(id);
+        if (s != null) return s;
+        if (size == ids.length) {
+            int cap = size * 2;
+            ids = Arrays.copyOf(ids, cap);
+            lat = Arrays.copyOf(lat, cap);
+            lon = Arrays.copyOf(lon, cap);
+            status = Arrays.copyOf(status, cap);
+            type = Arrays.copyOf(type, cap);
+        }
+        int slot = size++;
+        ids[slot] = id;
+        lat[slot] = Double.NaN;
+        lon[slot] = Double.NaN;
+        status[slot] = UNKNOWN;
+        type[slot] = NO_TYPE;
+        writableSlots().put(id, slot);
+        return slot;
+    }
+
+    private Map<String, Integer> writableSlots() {
+        if (slotsShared) {
+            slots = new HashMap<>(slots);
+            slotsShared = false;
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,59 @@
+package com.neurofleetx.dispatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Component;
+
+/** Shared limits and result shape for the /nearby endpoints. */
+@Component
+public class NearbySearch {
+    @Value("${geo.nearby.default-radius-km:2}")
+    private double defaultRadiusKm;
+
+    @Value("${geo.nearby.max-radius-km:50}")
+    private double maxRadiusKm;
+
+    @Value("${geo.nearby.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${geo.nearby.max-limit:200}")
+    private int maxLimit;
+
+    /** Null when the point or radius is unusable. */
+    public GeoJsonPoint point(double lat, double lon, Double radiusKm) {
+        // NaN fails every comparison, so it has to be ruled out explicitly
+        if (!Double.isFinite(lat) || !Double.isFinite(lon) || Math.abs(lat) > 90 || Math.abs(lon) > 180) return null;
+        if (radiusKm != null && !(radiusKm > 0)) return null;
+        return new GeoJsonPoint(lon, lat);
+    }
+
+    public Distance radius(Double radiusKm) {
+        return new Distance(Math.min(radiusKm == null ? defaultRadiusKm : radiusKm, maxRadiusKm), Metrics.KILOMETERS);
+    }
+
+    public Pageable page(Integer limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit == null ? defaultLimit : limit, maxLimit)));
+    }
+
+    /** Nearest first, each entry as {"distanceKm": d, key: entity}. */
+    public static <T> List<Map<String, Object>> results(List<GeoResult<T>> found, String key) {
+        List<Map<String, Object>> out = new ArrayList<>(found.size());
+        for (GeoResult<T> r : found) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("distanceKm", r.getDistance().in(Metrics.KILOMETERS).getValue());
+            m.put(key, r.getContent());
+            out.add(m);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,120 @@
+package com.neurofleetx.dispatch;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.dispatch.AssignmentService.Outcome;
+import com.neurofleetx.dispatch.AssignmentService.Result;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripEventLog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link AssignmentService}. The driver and vehicle claims
+ * are independent, so both go out at once; the trip is claimed only when both held,
+ * and any claim that did succeed is handed back otherwise.
+ */
+@Service
+public class ReactiveAssignmentService {
+    private static final FindAndModifyOptions RETURN_OLD = FindAndModifyOptions.options().returnNew(false);
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    public Mono<Result> assign(String tripId, String driverId, String vehicleId) {
+        return claim(tripId, driverId, vehicleId).doOnNext(result -> meterRegistry
+                .counter("fleet.assignments", "path", "reactive", "outcome", result.getOutcome().name()).increment());
+    }
+
+    private Mono<Result> claim(String tripId, String driverId, String vehicleId) {
+        Mono<Optional<Driver>> driver = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(driverId).and("status").is("AVAILABLE")),
+                new Update().set("status", "BUSY").set("vehicleId", vehicleId),
+                RETURN_OLD, Driver.class)
+                .doOnNext(d -> entityCaches.evict(EntityCacheConfig.DRIVERS, driverId))
+                .map(Optional::of).defaultIfEmpty(Optional.empty());
+        Mono<Optional<Vehicle>> vehicle = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(vehicleId).and("status").is("AVAILABLE")),
+                new Update().set("status", "BUSY").set("driverId", driverId),
+                RETURN_OLD, Vehicle.class)
+                .doOnNext(v -> entityCaches.evict(EntityCacheConfig.VEHICLES, vehicleId))
+                .map(Optional::of).defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(driver, vehicle).flatMap(claimed -> {
+            Optional<Driver> d = claimed.getT1();
+            Optional<Vehicle> v = claimed.getT2();
+            if (d.isEmpty() || v.isEmpty()) {
+                Outcome outcome = d.isEmpty() ? Outcome.DRIVER_UNAVAILABLE : Outcome.VEHICLE_UNAVAILABLE;
+                return release(d, v).thenReturn(new Result(outcome, null));
+            }
+
+            return mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("id").is(tripId).and("status").is("REQUESTED")),
+                    new Update().set("status", "ASSIGNED").set("driverId", driverId).set("vehicleId", vehicleId),
+                    RETURN_NEW, Trip.class)
+                    .map(trip -> {
+                        entityCaches.evict(EntityCacheConfig.TRIPS, tripId);
+                        tripEventLog.append(trip, "REQUESTED", "ASSIGNED");
+                        fleetIndex.drivers().setAvailable(driverId, false);
+                        fleetIndex.vehicles().setAvailable(vehicleId, false);
+                        fleetEventBus.publish("DRIVER", driverId, "BUSY", null, null);
+                        fleetEventBus.publish("VEHICLE", vehicleId, "BUSY", null, null);
+                        fleetEventBus.publish("TRIP", tripId, "ASSIGNED", null, null);
+                        return new Result(Outcome.ASSIGNED, trip);
+                    })
+                    .switchIfEmpty(Mono.defer(() -> release(d, v)
+                            .then(mongoTemplate.exists(Query.query(Criteria.where("id").is(tripId)), Trip.class))
+                            .map(exists -> new Result(exists ? Outcome.TRIP_NOT_REQUESTED : Outcome.TRIP_NOT_FOUND, null))));
+        });
+    }
+
+    private Mono<Void> release(Optional<Driver> driver, Optional<Vehicle> vehicle) {
+        return Mono.when(driver.map(this::release).orElse(Mono.empty()),
+                vehicle.map(this::release).orElse(Mono.empty()));
+    }
+
+    // restore the pre-claim document state, but only if nobody moved it on since
+    private Mono<Void> release(Driver before) {
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(before.getId()).and("status").is("BUSY")),
+                new Update().set("status", "AVAILABLE").set("vehicleId", before.getVehicleId()), Driver.class)
+                .doOnNext(r -> entityCaches.evict(EntityCacheConfig.DRIVERS, before.getId()))
+                .then();
+    }
+
+    private Mono<Void> release(Vehicle before) {
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(before.getId()).and("status").is("BUSY")),
+                new Update().set("status", "AVAILABLE").set("driverId", before.getDriverId()), Vehicle.class)
+                .doOnNext(r -> entityCaches.evict(EntityCacheConfig.VEHICLES, before.getId()))
+                .then();
+    }
+}
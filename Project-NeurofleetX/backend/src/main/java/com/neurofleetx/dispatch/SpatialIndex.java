@@ -0,0 +1,228 @@
+package com.neurofleetx.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.neurofleetx.model.FleetStatus;
+import com.neurofleetx.model.VehicleType;
+
+/**
+ * Uniform lat/lon grid over the available members of one entity type.
+ * Writes are serialized on the index; reads are lock-free and see a weakly
+ * consistent view, which is fine for dispatch since assignment re-checks status.
+ * Every write is mirrored into a {@link FleetTable} for array-based scoring.
+ */
+public class SpatialIndex {
+    public static final class Hit {
+        private final String id;
+        private final double distanceKm;
+
+        Hit(String id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+
+        public String getId() { return id; }
+        public double getDistanceKm() { return distanceKm; }
+        public boolean isLocated() { return !Double.isInfinite(distanceKm); }
+    }
+
+    private static final class Entry {
+        final String id;
+        final double lat;
+        final double lon;
+        final boolean located;
+        final boolean available;
+        final long cell;
+
+        Entry(String id, double lat, double lon, boolean located, boolean available, long cell) {
+            this.id = id;
+            this.lat = lat;
+            this.lon = lon;
+            this.located = located;
+            this.available = available;
+            this.cell = cell;
+        }
+
+        boolean indexed() { return located && available; }
+    }
+
+    private final double cellDegrees;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry>> cells = new ConcurrentHashMap<>();
+    // available members with no position yet, used only as a last resort
+    private final Set<Entry> unlocated = ConcurrentHashMap.newKeySet();
+    private final FleetTable table = new FleetTable();
+
+    public SpatialIndex(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public void update(String id, Double lat, Double lon, boolean available) {
+        update(id, lat, lon, available ? FleetStatus.AVAILABLE : FleetStatus.UNKNOWN, null);
+    }
+
+    public synchronized void update(String id, Double lat, Double lon, FleetStatus status, VehicleType type) {
+        boolean available = status == FleetStatus.AVAILABLE;
+        table.put(id, lat, lon, status, type);
+        Entry prev = entries.get(id);
+        boolean located = lat != null && lon != null;
+        double la = located ? lat : 0, lo = located ? lon : 0;
+        replace(prev, new Entry(id, la, lo, located, available, located ? cellKey(la, lo) : 0));
+    }
+
+    public synchronized void move(String id, double lat, double lon) {
+        table.move(id, lat, lon);
+        Entry prev = entries.get(id);
+        boolean available = prev != null && prev.available;
+        replace(prev, new Entry(id, lat, lon, true, available, cellKey(lat, lon)));
+    }
+
+    // only the claim/release paths call this, so unavailable means BUSY
+    public synchronized void setAvailable(String id, boolean available) {
+        table.setStatus(id, available ? FleetStatus.AVAILABLE : FleetStatus.BUSY);
+        Entry prev = entries.get(id);
+        if (prev == null) {
+            replace(null, new Entry(id, 0, 0, false, available, 0));
+        } else if (prev.available != available) {
+            replace(prev, new Entry(id, prev.lat, prev.lon, prev.located, available, prev.cell));
+        }
+    }
+
+    public synchronized void remove(String id) {
+        table.remove(id);
+        Entry prev = entries.remove(id);
+        if (prev != null) unlink(prev);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cells.clear();
+        unlocated.clear();
+        table.clear();
+    }
+
+    public FleetTable table() { return table; }
+
+    public boolean contains(String id) {
+        return entries.containsKey(id);
+    }
+
+    public boolean isAvailable(String id) {
+        Entry e = entries.get(id);
+        return e != null && e.available;
+    }
+
+    /** Distance from the member's last known position, infinite if it has none. */
+    public double distanceKm(String id, double lat, double lon) {
+        Entry e = entries.get(id);
+        return e == null || !e.located ? Double.POSITIVE_INFINITY : Geo.haversineKm(lat, lon, e.lat, e.lon);
+    }
+
+    public int size() { return entries.size(); }
+
+    /**
+     * Up to {@code k} available members ordered by great-circle distance from the
+     * given point. Rings of cells are probed outward until the k-th best distance is
+     * closer than anything an unvisited ring could hold; if the probed area outgrows
+     * the number of occupied cells it falls back to scanning those cells directly.
+     * Members without a position are appended (with infinite distance) when fewer
+     * than {@code k} located ones exist.
+     */
+    public List<Hit> nearest(double lat, double lon, int k) {
+        if (k <= 0) return Collections.emptyList();
+        PriorityQueue<Hit> best = new PriorityQueue<>(k, Comparator.comparingDouble(Hit::getDistanceKm).reversed());
+        Set<String> seen = new HashSet<>();
+        int ci = index(lat), cj = index(lon);
+
+        for (int r = 0; ; r++) {
+            long probed = (2L * r + 1) * (2L * r + 1);
+            if (probed > cells.size()) {
+                for (Set<Entry> bucket : cells.values()) offer(bucket, lat, lon, k, best, seen);
+                break;
+            }
+            if (r == 0) {
+                offer(cells.get(key(ci, cj)), lat, lon, k, best, seen);
+            } else {
+                for (int d = -r; d <= r; d++) {
+                    offer(cells.get(key(ci - r, cj + d)), lat, lon, k, best, seen);
+                    offer(cells.get(key(ci + r, cj + d)), lat, lon, k, best, seen);
+                }
+                for (int d = -r + 1; d <= r - 1; d++) {
+                    offer(cells.get(key(ci + d, cj - r)), lat, lon, k, best, seen);
+                    offer(cells.get(key(ci + d, cj + r)), lat, lon, k, best, seen);
+                }
+            }
+            if (best.size() == k && lowerBoundKm(lat, r + 1) > best.peek().getDistanceKm()) break;
+        }
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        for (Entry e : unlocated) {
+            if (result.size() >= k) break;
+            if (seen.add(e.id)) result.add(new Hit(e.id, Double.POSITIVE_INFINITY));
+        }
+        return result;
+    }
+
+    private void offer(Set<Entry> bucket, double lat, double lon, int k, PriorityQueue<Hit> best, Set<String> seen) {
+        if (bucket == null) return;
+        for (Entry e : bucket) {
+            double d = Geo.haversineKm(lat, lon, e.lat, e.lon);
+            if (best.size() < k) {
+                if (seen.add(e.id)) best.add(new Hit(e.id, d));
+            } else if (d < best.peek().getDistanceKm() && seen.add(e.id)) {
+                seen.remove(best.poll().getId());
+                best.add(new Hit(e.id, d));
+            }
+        }
+    }
+
+    // Anything in ring r is at least r-1 whole cells away from a point in the centre cell.
+    private double lowerBoundKm(double lat, int ring) {
+        if (ring <= 1) return 0;
+        double widestLat = Math.min(89.9, Math.abs(lat) + ring * cellDegrees);
+        return (ring - 1) * cellDegrees * Geo.KM_PER_DEGREE * Math.cos(Math.toRadians(widestLat));
+    }
+
+    private void replace(Entry prev, Entry next) {
+        if (prev != null) unlink(prev);
+        entries.put(next.id, next);
+        if (next.indexed()) {
+            cells.computeIfAbsent(next.cell, c -> ConcurrentHashMap.newKeySet()).add(next);
+        } else if (next.available) {
+            unlocated.add(next);
+        }
+    }
+
+    private void unlink(Entry e) {
+        if (e.indexed()) {
+            Set<Entry> bucket = cells.get(e.cell);
+            if (bucket != null) {
+                bucket.remove(e);
+                if (bucket.isEmpty()) cells.remove(e.cell);
+            }
+        } else {
+            unlocated.remove(e);
+        }
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private long cellKey(double lat, double lon) {
+        return key(index(lat), index(lon));
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | (j & 0xffffffffL);
+    }
+}
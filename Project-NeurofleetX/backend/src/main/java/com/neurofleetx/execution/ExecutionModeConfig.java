@@ -0,0 +1,76 @@
+package com.neurofleetx.execution;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Chooses what request handling runs on. In "platform" mode Tomcat keeps its usual
+ * bounded worker pool. In "virtual" mode every request, and every async MVC body
+ * (streams, exports), runs on its own virtual thread. The Mongo driver is blocking and
+ * called on the request thread, so its round trips park the virtual thread rather than
+ * holding a worker. Virtual threads need a Java 21 runtime; on older JVMs the mode
+ * falls back to platform threads with a warning.
+ */
+@Configuration
+public class ExecutionModeConfig implements WebMvcConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeConfig.class);
+
+    private final ExecutorService virtualExecutor;
+
+    public ExecutionModeConfig(@Value("${execution.mode:platform}") String mode) {
+        this.virtualExecutor = "virtual".equalsIgnoreCase(mode) ? newVirtualThreadPerTaskExecutor() : null;
+        log.info("Request execution mode: {}", virtualExecutor != null ? "virtual" : "platform");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> requestExecutorCustomizer() {
+        return handler -> {
+            if (virtualExecutor != null) handler.setExecutor(virtualExecutor);
+        };
+    }
+
+    /**
+     * With no worker cap, requests would otherwise queue inside the driver's connection
+     * pool instead; size it to what the database should see at once in either mode.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer(
+            @Value("${execution.mongo.max-pool-size:100}") int maxPoolSize,
+            @Value("${execution.mongo.max-wait-ms:2000}") long maxWaitMs) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxPoolSize)
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (virtualExecutor != null) configurer.setTaskExecutor(new TaskExecutorAdapter(virtualExecutor));
+    }
+
+    // looked up reflectively so the build keeps targeting Java 17
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            log.warn("execution.mode=virtual needs Java 21+, running on {}; using platform threads",
+                    System.getProperty("java.version"));
+        } catch (InvocationTargetException ex) {
+            // Java 19/20 ship the API behind --enable-preview
+            log.warn("Virtual threads are unavailable on this JVM; using platform threads", ex.getCause());
+        }
+        return null;
+    }
+}
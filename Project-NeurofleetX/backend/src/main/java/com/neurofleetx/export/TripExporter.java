@@ -0,0 +1,88 @@
+package com.neurofleetx.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Trip;
+
+/**
+ * Writes trips straight from a Mongo cursor as NDJSON or CSV. Only one cursor batch
+ * is held at a time, so memory stays flat however many trips match.
+ */
+@Component
+public class TripExporter {
+    private static final String CSV_HEADER = "id,passengerId,status,driverId,vehicleId,"
+            + "pickupLatitude,pickupLongitude,pickupAddress,dropoffLatitude,dropoffLongitude,dropoffAddress,"
+            + "fare,requestedTime,startTime,endTime,notes\n";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${export.cursor-batch-size:1000}")
+    private int batchSize;
+
+    public void ndjson(Query query, OutputStream out) throws IOException {
+        query.cursorBatchSize(batchSize);
+        boolean any = false;
+        try (Stream<Trip> trips = mongoTemplate.stream(query, Trip.class);
+             SequenceWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .withRootValueSeparator("\n").writeValues(out)) {
+            for (Iterator<Trip> it = trips.iterator(); it.hasNext(); any = true) writer.write(it.next());
+        }
+        if (any) out.write('\n');
+    }
+
+    public void csv(Query query, OutputStream out) throws IOException {
+        query.cursorBatchSize(batchSize);
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        w.write(CSV_HEADER);
+        try (Stream<Trip> trips = mongoTemplate.stream(query, Trip.class)) {
+            for (Iterator<Trip> it = trips.iterator(); it.hasNext(); ) {
+                Trip t = it.next();
+                cell(w, t.getId()); cell(w, t.getPassengerId()); cell(w, t.getStatus());
+                cell(w, t.getDriverId()); cell(w, t.getVehicleId());
+                location(w, t.getPickupLocation()); location(w, t.getDropoffLocation());
+                cell(w, t.getFare()); cell(w, t.getRequestedTime()); cell(w, t.getStartTime()); cell(w, t.getEndTime());
+                w.write(escape(t.getNotes()));
+                w.write('\n');
+            }
+        }
+        w.flush();
+    }
+
+    private static void location(Writer w, Location l) throws IOException {
+        cell(w, l == null ? null : l.getLatitude());
+        cell(w, l == null ? null : l.getLongitude());
+        cell(w, l == null ? null : l.getAddress());
+    }
+
+    private static void cell(Writer w, Object value) throws IOException {
+        w.write(escape(value == null ? null : value.toString()));
+        w.write(',');
+    }
+
+    private static String escape(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,45 @@
+package com.neurofleetx.history;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One entity's fixes for one time window. The id is "TYPE:entityId:startMillis"
+ * with the start zero-padded, so a time range for one entity is an _id range scan.
+ * Each flush appends one encoded chunk (see {@link TrackCodec}).
+ */
+@Document(collection = "location_history")
+public class LocationBucket {
+    @Id
+    private String id;
+    private String entityType; // DRIVER, VEHICLE
+    private String entityId;
+    private Instant start;
+    private Instant end;
+    private Integer count;
+    private List<byte[]> chunks;
+
+    public LocationBucket() {}
+
+    static String id(String entityType, String entityId, long startMillis) {
+        return entityType + ":" + entityId + ":" + String.format("%013d", startMillis);
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+    public String getEntityId() { return entityId; }
+    public void setEntityId(String entityId) { this.entityId = entityId; }
+    public Instant getStart() { return start; }
+    public void setStart(Instant start) { this.start = start; }
+    public Instant getEnd() { return end; }
+    public void setEnd(Instant end) { this.end = end; }
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+    public List<byte[]> getChunks() { return chunks; }
+    public void setChunks(List<byte[]> chunks) { this.chunks = chunks; }
+}
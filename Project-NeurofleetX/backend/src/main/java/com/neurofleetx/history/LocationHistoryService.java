@@ -0,0 +1,147 @@
+package com.neurofleetx.history;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.telemetry.LocationPing;
+
+/**
+ * Keeps every accepted ping, not just the latest. Pings are buffered and, once per
+ * flush, grouped by entity and time bucket; each group becomes one encoded chunk
+ * upserted into its bucket document with a single unordered bulk write.
+ */
+@Component
+public class LocationHistoryService {
+    private static final Logger log = LoggerFactory.getLogger(LocationHistoryService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final long bucketMillis;
+    private final int maxBuffered;
+    private final Duration maxRange;
+    private final ConcurrentLinkedQueue<LocationPing> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lastDropWarning = new AtomicLong();
+
+    public LocationHistoryService(@Value("${history.bucket-minutes:60}") long bucketMinutes,
+                                  @Value("${history.max-buffered:500000}") int maxBuffered,
+                                  @Value("${history.max-range-hours:24}") long maxRangeHours) {
+        this.bucketMillis = bucketMinutes * 60_000L;
+        this.maxBuffered = maxBuffered;
+        this.maxRange = Duration.ofHours(maxRangeHours);
+    }
+
+    public void record(Collection<LocationPing> pings) {
+        int n = 0;
+        for (LocationPing p : pings) {
+            if (buffered.incrementAndGet() > maxBuffered) {
+                buffered.decrementAndGet();
+                dropped(pings.size() - n);
+                return;
+            }
+            buffer.add(p);
+            n++;
+        }
+    }
+
+    // ingest calls this once per batch while the buffer stays full, so warn at most every 10s
+    private void dropped(int count) {
+        long total = dropped.addAndGet(count);
+        long now = System.currentTimeMillis(), last = lastDropWarning.get();
+        if (now - last >= 10_000 && lastDropWarning.compareAndSet(last, now)) {
+            log.warn("History buffer full, {} pings dropped so far", total);
+        }
+    }
+
+    /** True when [from, to] is ordered and no longer than history.max-range-hours. */
+    public boolean isValidRange(Instant from, Instant to) {
+        return !to.isBefore(from) && Duration.between(from, to).compareTo(maxRange) <= 0;
+    }
+
+    @Scheduled(fixedDelayString = "${history.flush-ms:30000}")
+    public void flush() {
+        if (buffer.isEmpty()) return;
+        Map<String, List<LocationPing>> groups = new HashMap<>();
+        for (LocationPing p; (p = buffer.poll()) != null; ) {
+            buffered.decrementAndGet();
+            String key = LocationBucket.id(p.getType(), p.getId(), bucketStart(p.getTimestamp().toEpochMilli()));
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, LocationBucket.class);
+        for (Map.Entry<String, List<LocationPing>> g : groups.entrySet()) {
+            List<LocationPing> pings = g.getValue();
+            pings.sort(Comparator.comparing(LocationPing::getTimestamp));
+            int n = pings.size();
+            long[] times = new long[n];
+            double[] lats = new double[n], lons = new double[n];
+            for (int i = 0; i < n; i++) {
+                LocationPing p = pings.get(i);
+                times[i] = p.getTimestamp().toEpochMilli();
+                lats[i] = p.getLatitude();
+                lons[i] = p.getLongitude();
+            }
+            LocationPing first = pings.get(0);
+            long start = bucketStart(times[0]);
+            ops.upsert(Query.query(Criteria.where("id").is(g.getKey())), new Update()
+                    .setOnInsert("entityType", first.getType())
+                    .setOnInsert("entityId", first.getId())
+                    .setOnInsert("start", Instant.ofEpochMilli(start))
+                    .max("end", Instant.ofEpochMilli(times[n - 1]))
+                    .inc("count", n)
+                    .push("chunks", TrackCodec.encode(times, lats, lons, n, start)));
+        }
+        try {
+            ops.execute();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write {} history buckets", groups.size(), ex);
+        }
+    }
+
+    /** Fixes for one entity in [from, to], oldest first; reads one document per bucket touched. */
+    public List<TrackPoint> track(String entityType, String entityId, Instant from, Instant to) {
+        long lo = from.toEpochMilli(), hi = to.toEpochMilli();
+        Query q = Query.query(Criteria.where("id")
+                .gte(LocationBucket.id(entityType, entityId, bucketStart(lo)))
+                .lte(LocationBucket.id(entityType, entityId, bucketStart(hi))))
+                .with(Sort.by("id"));
+        List<TrackPoint> points = new ArrayList<>();
+        for (LocationBucket b : mongoTemplate.find(q, LocationBucket.class)) {
+            if (b.getChunks() == null) continue;
+            long base = b.getStart().toEpochMilli();
+            for (byte[] chunk : b.getChunks()) TrackCodec.decode(chunk, base, lo, hi, points);
+        }
+        // chunks from separate flushes may interleave when pings arrive late
+        points.sort(Comparator.comparing(TrackPoint::getTimestamp));
+        return points;
+    }
+
+    private long bucketStart(long millis) {
+        return Math.floorDiv(millis, bucketMillis) * bucketMillis;
+    }
+}
@@ -0,0 +1,80 @@
+package com.neurofleetx.history;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packs a run of fixes as zigzag varints: a point count, then per point the deltas
+ * of time (ms), latitude and longitude (micro-degrees) against the previous point.
+ * The first point is relative to the bucket start and to (0, 0). A vehicle pinging
+ * every few seconds encodes in roughly six bytes per fix.
+ */
+public final class TrackCodec {
+    static final double SCALE = 1e6;
+
+    private TrackCodec() {}
+
+    public static byte[] encode(long[] times, double[] lats, double[] lons, int n, long base) {
+        Writer w = new Writer(8 + n * 8);
+        w.varint(n);
+        long pt = base;
+        int plat = 0, plon = 0;
+        for (int i = 0; i < n; i++) {
+            int lat = (int) Math.round(lats[i] * SCALE), lon = (int) Math.round(lons[i] * SCALE);
+            w.varint(zigzag(times[i] - pt));
+            w.varint(zigzag(lat - plat));
+            w.varint(zigzag(lon - plon));
+            pt = times[i];
+            plat = lat;
+            plon = lon;
+        }
+        return w.toArray();
+    }
+
+    /** Appends the decoded points that fall within [from, to] and returns how many were read in total. */
+    public static int decode(byte[] data, long base, long from, long to, List<TrackPoint> out) {
+        int[] pos = {0};
+        int n = (int) varint(data, pos);
+        long t = base;
+        int lat = 0, lon = 0;
+        for (int i = 0; i < n; i++) {
+            t += unzigzag(varint(data, pos));
+            lat += (int) unzigzag(varint(data, pos));
+            lon += (int) unzigzag(varint(data, pos));
+            if (t >= from && t <= to) out.add(new TrackPoint(lat / SCALE, lon / SCALE, Instant.ofEpochMilli(t)));
+        }
+        return n;
+    }
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static long varint(byte[] data, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[pos[0]++];
+            v |= (long) (b & 0x7f) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int len;
+
+        Writer(int capacity) { buf = new byte[capacity]; }
+
+        void varint(long v) {
+            if (len + 10 > buf.length) buf = Arrays.copyOf(buf, buf.length * 2 + 10);
+            while ((v & ~0x7fL) != 0) {
+                buf[len++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        byte[] toArray() { return Arrays.copyOf(buf, len); }
+    }
+}
@@ -0,0 +1,19 @@
+package com.neurofleetx.history;
+
+import java.time.Instant;
+
+public class TrackPoint {
+    private final double latitude;
+    private final double longitude;
+    private final Instant timestamp;
+
+    public TrackPoint(double latitude, double longitude, Instant timestamp) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+    }
+
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public Instant getTimestamp() { return timestamp; }
+}
@@ -0,0 +1,80 @@
+package com.neurofleetx.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: quoted fields may contain commas, doubled quotes and line
+ * breaks, and records end at LF or CRLF. Only the current record is held in memory.
+ */
+final class CsvRecordReader {
+    private final Reader in;
+    private final char[] buf = new char[64 * 1024];
+    private int pos, len;
+    private final StringBuilder field = new StringBuilder();
+
+    CsvRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Next record, or null at end of input. Blank lines come back as a single empty field. */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c < 0) return null;
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        for (; ; c = read()) {
+            if (quoted) {
+                if (c < 0) throw new IOException("Unterminated quoted field");
+                if (c == '"') {
+                    int n = peek();
+                    if (n == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c < 0) {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') read();
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        record.add(field.toString());
+        return record;
+    }
+
+    private int read() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        len = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (len <= 0) {
+            len = 0;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,352 @@
+package com.neurofleetx.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.stream.FleetEventBus;
+
+/**
+ * Bulk onboarding of vehicles and drivers from CSV or NDJSON. Rows are parsed and
+ * validated as they stream in and written in unordered insertMany batches, so memory
+ * is bounded by one batch however large the upload is. A bad row or a rejected insert
+ * only fails that row; the report lists them by 1-based data row number.
+ */
+@Component
+public class FleetImporter {
+    private static final int DUPLICATE_KEY = 11000;
+    private static final Set<String> VEHICLE_TYPES = new HashSet<>(Arrays.asList("SEDAN", "SUV", "VAN", "TRUCK"));
+    private static final Set<String> VEHICLE_STATUSES = new HashSet<>(Arrays.asList("AVAILABLE", "BUSY", "MAINTENANCE", "OFFLINE"));
+    private static final Set<String> DRIVER_STATUSES = new HashSet<>(Arrays.asList("AVAILABLE", "BUSY", "OFFLINE", "BREAK"));
+
+    /** Builds an entity from one row; throws IllegalArgumentException with a row-level message. */
+    private interface RowMapper<T> {
+        T map(Map<String, String> row);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Value("${import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${import.max-errors:1000}")
+    private int maxErrors;
+
+    /** @throws IllegalArgumentException if a CSV header lacks a required column */
+    public ImportReport vehicles(InputStream in, boolean csv) throws IOException {
+        return run("vehicles", in, csv, Vehicle.class, List.of("licensePlate"), this::vehicle, v -> {
+            fleetIndex.track(v);
+            fleetEventBus.publish("VEHICLE", v.getId(), v.getStatus(), v.getCurrentLocation());
+        });
+    }
+
+    /** @throws IllegalArgumentException if a CSV header lacks a required column */
+    public ImportReport drivers(InputStream in, boolean csv) throws IOException {
+        return run("drivers", in, csv, Driver.class, List.of("email", "firstName", "lastName"), this::driver, d -> {
+            fleetIndex.track(d);
+            fleetEventBus.publish("DRIVER", d.getId(), d.getStatus(), d.getCurrentLocation());
+        });
+    }
+
+    /**
+     * Picks the parser from an explicit format parameter or else the Content-Type;
+     * null when neither names CSV or NDJSON.
+     */
+    public static Boolean isCsv(String format, String contentType) {
+        String f = format != null ? format : contentType;
+        if (f == null) return null;
+        f = f.toLowerCase(Locale.ROOT);
+        if (f.contains("csv")) return Boolean.TRUE;
+        if (f.contains("ndjson") || f.contains("json")) return Boolean.FALSE;
+        return null;
+    }
+
+    /** Undoes a gzip Content-Encoding, which the servlet container leaves to the application. */
+    public static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        return contentEncoding != null && contentEncoding.toLowerCase(Locale.ROOT).contains("gzip")
+                ? new GZIPInputStream(body, 64 * 1024) : body;
+    }
+
+    private Vehicle vehicle(Map<String, String> row) {
+        Vehicle v = new Vehicle();
+        v.setId(new ObjectId().toHexString());
+        v.setLicensePlate(required(row, "licensePlate"));
+        v.setMake(row.get("make"));
+        v.setModel(row.get("model"));
+        v.setColor(row.get("color"));
+        v.setYear(integer(row, "year"));
+        v.setCapacity(integer(row, "capacity"));
+        if (v.getCapacity() != null && v.getCapacity() < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        v.setType(oneOf(row, "type", VEHICLE_TYPES, "SEDAN"));
+        v.setStatus(oneOf(row, "status", VEHICLE_STATUSES, "AVAILABLE"));
+        v.setDriverId(row.get("driverId"));
+        v.setCurrentLocation(location(row));
+        v.setLastUpdated(Instant.now());
+        return v;
+    }
+
+    private Driver driver(Map<String, String> row) {
+        Driver d = new Driver();
+        d.setId(new ObjectId().toHexString());
+        String email = required(row, "email");
+        if (email.indexOf('@') < 1) throw new IllegalArgumentException("email is not valid: " + email);
+        d.setEmail(email);
+        d.setFirstName(required(row, "firstName"));
+        d.setLastName(required(row, "lastName"));
+        d.setPhoneNumber(row.get("phoneNumber"));
+        d.setLicenseNumber(row.get("licenseNumber"));
+        d.setVehicleId(row.get("vehicleId"));
+        d.setStatus(oneOf(row, "status", DRIVER_STATUSES, "AVAILABLE"));
+        d.setCurrentLocation(location(row));
+        d.setLastActive(Instant.now());
+        return d;
+    }
+
+    private <T> ImportReport run(String entity, InputStream in, boolean csv, Class<T> type, List<String> requiredColumns,
+                                 RowMapper<T> mapper, Consumer<T> onInserted) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportReport report = new ImportReport(entity, maxErrors);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Iterator<Row> rows = csv ? csvRows(reader, requiredColumns) : ndjsonRows(reader);
+        String collection = mongoTemplate.getCollectionName(type);
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+        try {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (row.values == null && row.error == null) continue; // blank line
+                report.row();
+                try {
+                    if (row.error != null) throw new IllegalArgumentException(row.error);
+                    batch.add(mapper.map(row.values));
+                    batchRows.add(row.number);
+                } catch (IllegalArgumentException ex) {
+                    report.error(row.number, ex.getMessage());
+                }
+                if (batch.size() >= batchSize && !flush(collection, batch, batchRows, report, onInserted)) break;
+            }
+        } catch (UncheckedIOException ex) {
+            // an unterminated quote or a truncated upload; keep what was read cleanly
+            report.abort("Malformed input: " + ex.getCause().getMessage());
+        }
+        if (!batch.isEmpty()) flush(collection, batch, batchRows, report, onInserted);
+        report.elapsed(System.currentTimeMillis() - started);
+        return report;
+    }
+
+    // false when the batch failed as a whole, which stops the import
+    private <T> boolean flush(String collection, List<T> batch, List<Long> rows, ImportReport report, Consumer<T> onInserted) {
+        List<Document> docs = new ArrayList<>(batch.size());
+        for (T e : batch) {
+            Document d = new Document();
+            mongoTemplate.getConverter().write(e, d);
+            docs.add(d);
+        }
+        Set<Integer> failed = new HashSet<>();
+        boolean ok = true;
+        try {
+            mongoTemplate.getCollection(collection).insertMany(docs, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException ex) {
+            for (BulkWriteError err : ex.getWriteErrors()) {
+                failed.add(err.getIndex());
+                report.error(rows.get(err.getIndex()), err.getCode() == DUPLICATE_KEY ? "Duplicate key" : err.getMessage());
+            }
+        } catch (MongoException ex) {
+            for (Long row : rows) report.error(row, "Not written: " + ex.getMessage());
+            report.abort(ex.getMessage());
+            ok = false;
+        }
+        if (ok) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (!failed.contains(i)) onInserted.accept(batch.get(i));
+            }
+            report.inserted(batch.size() - failed.size());
+        }
+        batch.clear();
+        rows.clear();
+        return ok;
+    }
+
+    private static final class Row {
+        final long number;
+        final Map<String, String> values;
+        final String error;
+
+        Row(long number, Map<String, String> values, String error) {
+            this.number = number;
+            this.values = values;
+            this.error = error;
+        }
+    }
+
+    private Iterator<Row> csvRows(BufferedReader reader, List<String> requiredColumns) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) return Collections.emptyIterator();
+        List<String> columns = new ArrayList<>();
+        for (String h : header) columns.add(h.trim());
+        if (!columns.isEmpty() && columns.get(0).startsWith("\uFEFF")) columns.set(0, columns.get(0).substring(1));
+        for (String c : requiredColumns) {
+            if (!columns.contains(c)) throw new IllegalArgumentException("CSV header is missing required column " + c);
+        }
+        return new Iterator<Row>() {
+            private long number;
+            private List<String> next = read();
+
+            private List<String> read() {
+                try {
+                    return csv.next();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            @Override
+            public boolean hasNext() { return next != null; }
+
+            @Override
+            public Row next() {
+                List<String> record = next;
+                next = read();
+                if (record.isEmpty() || record.size() == 1 && record.get(0).isEmpty()) return new Row(number, null, null);
+                number++;
+                if (record.size() != columns.size()) {
+                    return new Row(number, null, "Expected " + columns.size() + " fields but found " + record.size());
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    String v = record.get(i).trim();
+                    if (!v.isEmpty()) values.put(columns.get(i), v);
+                }
+                return new Row(number, values, null);
+            }
+        };
+    }
+
+    private Iterator<Row> ndjsonRows(BufferedReader reader) {
+        return new Iterator<Row>() {
+            private long number;
+            private String next = read();
+
+            private String read() {
+                try {
+                    return reader.readLine();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            @Override
+            public boolean hasNext() { return next != null; }
+
+            @Override
+            public Row next() {
+                String line = next;
+                next = read();
+                if (line.isBlank()) return new Row(number, null, null);
+                number++;
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    if (!node.isObject()) return new Row(number, null, "Expected a JSON object");
+                    Map<String, String> values = new HashMap<>();
+                    node.fields().forEachRemaining(f -> flatten(f.getKey(), f.getValue(), values));
+                    return new Row(number, values, null);
+                } catch (JsonProcessingException ex) {
+                    return new Row(number, null, "Invalid JSON: " + ex.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    // currentLocation objects are read as the same flat latitude/longitude columns the CSV uses
+    private static void flatten(String key, JsonNode value, Map<String, String> out) {
+        if ("currentLocation".equals(key) && value.isObject()) {
+            value.fields().forEachRemaining(f -> flatten(f.getKey(), f.getValue(), out));
+        } else if (!value.isNull() && !value.isContainerNode() && !value.asText().isBlank()) {
+            out.put(key, value.asText().trim());
+        }
+    }
+
+    private static String required(Map<String, String> row, String column) {
+        String v = row.get(column);
+        if (v == null) throw new IllegalArgumentException(column + " is required");
+        return v;
+    }
+
+    private static Integer integer(Map<String, String> row, String column) {
+        String v = row.get(column);
+        if (v == null) return null;
+        try {
+            return Integer.valueOf(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " is not a number: " + v);
+        }
+    }
+
+    private static String oneOf(Map<String, String> row, String column, Set<String> allowed, String fallback) {
+        String v = row.get(column);
+        if (v == null) return fallback;
+        v = v.toUpperCase(Locale.ROOT);
+        if (!allowed.contains(v)) throw new IllegalArgumentException(column + " must be one of " + allowed);
+        return v;
+    }
+
+    private static Location location(Map<String, String> row) {
+        String lat = row.get("latitude"), lon = row.get("longitude");
+        if (lat == null && lon == null) return null;
+        if (lat == null || lon == null) throw new IllegalArgumentException("latitude and longitude must be given together");
+        double la, lo;
+        try {
+            la = Double.parseDouble(lat);
+            lo = Double.parseDouble(lon);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("latitude/longitude are not numbers");
+        }
+        if (!Double.isFinite(la) || !Double.isFinite(lo) || Math.abs(la) > 90 || Math.abs(lo) > 180) throw new IllegalArgumentException("latitude/longitude out of range");
+        return new Location(la, lo, row.get("address"));
+    }
+}
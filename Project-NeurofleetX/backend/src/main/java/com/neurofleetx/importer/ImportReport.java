@@ -0,0 +1,53 @@
+package com.neurofleetx.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of one bulk import: totals plus the first {@code maxErrors} row errors. */
+public class ImportReport {
+    public static final class RowError {
+        private final long row;
+        private final String error;
+
+        RowError(long row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+
+        public long getRow() { return row; }
+        public String getError() { return error; }
+    }
+
+    private final String entity;
+    private final int maxErrors;
+    private long rows, inserted, failed, elapsedMs;
+    private final List<RowError> errors = new ArrayList<>();
+    private String aborted;
+
+    ImportReport(String entity, int maxErrors) {
+        this.entity = entity;
+        this.maxErrors = maxErrors;
+    }
+
+    void row() { rows++; }
+    void inserted(int n) { inserted += n; }
+
+    void error(long row, String error) {
+        failed++;
+        if (errors.size() < maxErrors) errors.add(new RowError(row, error));
+    }
+
+    void abort(String reason) { aborted = reason; }
+    void elapsed(long ms) { elapsedMs = ms; }
+
+    public String getEntity() { return entity; }
+    /** Data rows read, not counting the CSV header. */
+    public long getRows() { return rows; }
+    public long getInserted() { return inserted; }
+    public long getFailed() { return failed; }
+    public List<RowError> getErrors() { return errors; }
+    public boolean isErrorsTruncated() { return failed > errors.size(); }
+    /** Set when the import stopped early; rows after the failed batch were not read. */
+    public String getAborted() { return aborted; }
+    public long getElapsedMs() { return elapsedMs; }
+}
@@ -1,13 +1,21 @@
 package com.neurofleetx.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.Instant;
 
+@CompoundIndex(name = "status_lastActive", def = "{'status': 1, 'lastActive': 1}")
 @Document(collection = "drivers")
 public class Driver {
     @Id
     private String id;
+    @Indexed(name = "email_unique", unique = true, sparse = true)
     private String email;
     private String firstName;
     private String lastName;
@@ -17,6 +25,10 @@ public class Driver {
     private String status; // AVAILABLE, BUSY, OFFLINE, BREAK
     private Instant lastActive;
     private Location currentLocation;
+    // GeoJSON mirror of currentLocation, kept in step by its setter and by telemetry writes
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint position;
 
     public Driver() {}
 
@@ -40,5 +52,7 @@ public class Driver {
     public Instant getLastActive() { return lastActive; }
     public void setLastActive(Instant lastActive) { this.lastActive = lastActive; }
     public Location getCurrentLocation() { return currentLocation; }
-    public void setCurrentLocation(Location currentLocation) { this.currentLocation = currentLocation; }
+    public void setCurrentLocation(Location currentLocation) { this.currentLocation = currentLocation; this.position = Location.toPoint(currentLocation); }
+    @JsonIgnore
+    public GeoJsonPoint getPosition() { return position; }
 }
@@ -0,0 +1,19 @@
+package com.neurofleetx.model;
+
+/** Driver/vehicle status as a compact code for in-memory fleet views; the documents keep the String. */
+public enum FleetStatus {
+    AVAILABLE, BUSY, OFFLINE, BREAK, MAINTENANCE, UNKNOWN;
+
+    private static final FleetStatus[] VALUES = values();
+
+    public static FleetStatus of(String status) {
+        if (status != null) {
+            for (FleetStatus s : VALUES) if (s.name().equals(status)) return s;
+        }
+        return UNKNOWN;
+    }
+
+    public static FleetStatus of(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : UNKNOWN;
+    }
+}
@@ -1,5 +1,7 @@
 package com.neurofleetx.model;
 
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
 public class Location {
     private Double latitude;
     private Double longitude;
@@ -19,4 +21,12 @@ public class Location {
     public void setLongitude(Double longitude) { this.longitude = longitude; }
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
+
+    /** GeoJSON form (lon, lat) for 2dsphere queries; null unless both coordinates are valid. */
+    public static GeoJsonPoint toPoint(Location l) {
+        if (l == null || l.latitude == null || l.longitude == null) return null;
+        if (!Double.isFinite(l.latitude) || !Double.isFinite(l.longitude)
+                || Math.abs(l.latitude) > 90 || Math.abs(l.longitude) > 180) return null;
+        return new GeoJsonPoint(l.longitude, l.latitude);
+    }
 }
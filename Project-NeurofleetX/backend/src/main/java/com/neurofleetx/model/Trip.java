@@ -1,9 +1,13 @@
 package com.neurofleetx.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
 
+@CompoundIndex(name = "driverId_requestedTime", def = "{'driverId': 1, 'requestedTime': -1}")
+@CompoundIndex(name = "status_requestedTime", def = "{'status': 1, 'requestedTime': 1}")
+@CompoundIndex(name = "vehicleId_status", def = "{'vehicleId': 1, 'status': 1}")
 @Document(collection = "trips")
 public class Trip {
     @Id
@@ -19,6 +23,9 @@ public class Trip {
     private Instant startTime;
     private Instant endTime;
     private Instant requestedTime;
+    private Long predictedDurationSeconds; // pickup to dropoff, set on creation
+    private Integer seats; // passengers travelling together, 1 when unset
+    private Boolean shared; // rider accepts pooling with other trips
 
     public Trip() {}
 
@@ -47,4 +54,10 @@ public class Trip {
     public void setEndTime(Instant endTime) { this.endTime = endTime; }
     public Instant getRequestedTime() { return requestedTime; }
     public void setRequestedTime(Instant requestedTime) { this.requestedTime = requestedTime; }
+    public Long getPredictedDurationSeconds() { return predictedDurationSeconds; }
+    public void setPredictedDurationSeconds(Long predictedDurationSeconds) { this.predictedDurationSeconds = predictedDurationSeconds; }
+    public Integer getSeats() { return seats; }
+    public void setSeats(Integer seats) { this.seats = seats; }
+    public Boolean getShared() { return shared; }
+    public void setShared(Boolean shared) { this.shared = shared; }
 }
@@ -1,12 +1,14 @@
 package com.neurofleetx.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "users")
 public class User {
     @Id
     private String id;
+    @Indexed(name = "email_unique", unique = true)
     private String email;
     private String password; // BCrypt hashed
     private String firstName;
@@ -1,22 +1,36 @@
 package com.neurofleetx.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.Instant;
 
+@CompoundIndex(name = "status_lastUpdated", def = "{'status': 1, 'lastUpdated': 1}")
 @Document(collection = "vehicles")
 public class Vehicle {
     @Id
     private String id;
+    @Indexed(name = "licensePlate_unique", unique = true, sparse = true)
     private String licensePlate;
     private String make;
     private String model;
     private Integer year;
     private String color;
     private String type; // SEDAN, SUV, VAN, TRUCK
+    private Integer capacity; // passenger seats; defaults by type when unset
     private String status; // AVAILABLE, BUSY, MAINTENANCE, OFFLINE
+    @Indexed
     private String driverId;
     private Location currentLocation;
+    // GeoJSON mirror of currentLocation, kept in step by its setter and by telemetry writes
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint position;
     private Instant lastUpdated;
 
     public Vehicle() {}
@@ -36,12 +50,16 @@ public class Vehicle {
     public void setColor(String color) { this.color = color; }
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
+    public Integer getCapacity() { return capacity; }
+    public void setCapacity(Integer capacity) { this.capacity = capacity; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     public String getDriverId() { return driverId; }
     public void setDriverId(String driverId) { this.driverId = driverId; }
     public Location getCurrentLocation() { return currentLocation; }
-    public void setCurrentLocation(Location currentLocation) { this.currentLocation = currentLocation; }
+    public void setCurrentLocation(Location currentLocation) { this.currentLocation = currentLocation; this.position = Location.toPoint(currentLocation); }
+    @JsonIgnore
+    public GeoJsonPoint getPosition() { return position; }
     public Instant getLastUpdated() { return lastUpdated; }
     public void setLastUpdated(Instant lastUpdated) { this.lastUpdated = lastUpdated; }
 }
@@ -0,0 +1,28 @@
+package com.neurofleetx.model;
+
+/** Vehicle type as a compact code for in-memory fleet views; the documents keep the String. */
+public enum VehicleType {
+    SEDAN(4), SUV(6), VAN(8), TRUCK(2), MOTORCYCLE(1), OTHER(4);
+
+    private static final VehicleType[] VALUES = values();
+
+    private final int seats;
+
+    VehicleType(int seats) {
+        this.seats = seats;
+    }
+
+    /** Passenger seats assumed when a vehicle does not state its capacity. */
+    public int seats() { return seats; }
+
+    public static VehicleType of(String type) {
+        if (type != null) {
+            for (VehicleType t : VALUES) if (t.name().equals(type)) return t;
+        }
+        return OTHER;
+    }
+
+    public static VehicleType of(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : OTHER;
+    }
+}
@@ -0,0 +1,118 @@
+package com.neurofleetx.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serves list endpoints one _id-ordered page at a time. The body stays a plain JSON
+ * array but is written straight from a Mongo cursor; when more documents follow, the
+ * opaque cursor for the next page goes out in the X-Next-Cursor header. That cursor
+ * is the first _id of the next page, found up front with one _id-only lookup.
+ * A request with neither cursor nor limit is not paged: the whole result is streamed,
+ * so clients that never read X-Next-Cursor still see every document.
+ */
+@Component
+public class KeysetPager {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${paging.default-size:500}")
+    private int defaultSize;
+
+    @Value("${paging.max-size:5000}")
+    private int maxSize;
+
+    public <T> ResponseEntity<StreamingResponseBody> page(Class<T> type, Criteria filter, String cursor, Integer limit, List<String> fields) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(stream(project(new Query(where(filter, null, null)).with(Sort.by("id")), fields), type));
+        }
+        int size = Math.max(1, Math.min(limit == null ? defaultSize : limit, maxSize));
+        String from;
+        try {
+            from = cursor == null ? null : decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, Map.of("error", "Invalid cursor")));
+        }
+
+        Query probe = new Query(where(filter, from, null)).with(Sort.by("id")).skip(size).limit(1);
+        probe.fields().include("id");
+        T next = mongoTemplate.findOne(probe, type);
+        String nextId = next == null ? null : idOf(next);
+
+        Query query = project(new Query(where(filter, from, nextId)).with(Sort.by("id")).limit(size), fields);
+        StreamingResponseBody body = stream(query, type);
+        ResponseEntity.BodyBuilder resp = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (nextId != null) {
+            resp.header(NEXT_CURSOR_HEADER, encode(nextId));
+        }
+        return resp.body(body);
+    }
+
+    /** Encodes an _id as the opaque X-Next-Cursor value. */
+    static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes an X-Next-Cursor value; throws IllegalArgumentException when it is not one. */
+    static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    private static Query project(Query query, List<String> fields) {
+        if (fields != null && !fields.isEmpty()) {
+            query.fields().include("id");
+            fields.forEach(f -> query.fields().include(f));
+        }
+        return query;
+    }
+
+    private <T> StreamingResponseBody stream(Query query, Class<T> type) {
+        return out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+                 Stream<T> docs = mongoTemplate.stream(query, type)) {
+                gen.writeStartArray();
+                for (Iterator<T> it = docs.iterator(); it.hasNext(); ) gen.writeObject(it.next());
+                gen.writeEndArray();
+            }
+        };
+    }
+
+    private static Criteria where(Criteria filter, String fromId, String beforeId) {
+        if (fromId == null && beforeId == null) return filter == null ? new Criteria() : filter;
+        Criteria id = Criteria.where("id");
+        if (fromId != null) id.gte(fromId);
+        if (beforeId != null) id.lt(beforeId);
+        return filter == null ? id : new Criteria().andOperator(filter, id);
+    }
+
+    private String idOf(Object entity) {
+        Object id = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entity.getClass())
+                .getIdentifierAccessor(entity).getIdentifier();
+        return id == null ? null : id.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.neurofleetx.pooling;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.neurofleetx.dispatch.Geo;
+
+/**
+ * The ordered stops one vehicle still has to make for its ASSIGNED and IN_PROGRESS trips.
+ * Guarded by its own monitor; {@code version} changes on every edit so a search done
+ * outside the lock can tell whether its plan still applies.
+ */
+final class PoolRoute {
+    /** One trip on the route and the limits it was accepted under. */
+    static final class Leg {
+        final String tripId;
+        final int seats;
+        final boolean shared;
+        final boolean located;
+        final double pickupLat, pickupLon, dropoffLat, dropoffLon;
+        final double rideLimitSeconds;
+        final long pickupByMs;
+        volatile long pickedUpAtMs;
+
+        Leg(String tripId, int seats, boolean shared, boolean located, double pickupLat, double pickupLon,
+            double dropoffLat, double dropoffLon, double rideLimitSeconds, long pickupByMs) {
+            this.tripId = tripId;
+            this.seats = seats;
+            this.shared = shared;
+            this.located = located;
+            this.pickupLat = pickupLat;
+            this.pickupLon = pickupLon;
+            this.dropoffLat = dropoffLat;
+            this.dropoffLon = dropoffLon;
+            this.rideLimitSeconds = rideLimitSeconds;
+            this.pickupByMs = pickupByMs;
+        }
+
+        boolean onboard() { return pickedUpAtMs > 0; }
+    }
+
+    static final class Stop {
+        final Leg leg;
+        final boolean pickup;
+
+        Stop(Leg leg, boolean pickup) {
+            this.leg = leg;
+            this.pickup = pickup;
+        }
+
+        double lat() { return pickup ? leg.pickupLat : leg.dropoffLat; }
+        double lon() { return pickup ? leg.pickupLon : leg.dropoffLon; }
+    }
+
+    final String vehicleId;
+    String driverId;
+    int capacity; // 0 until looked up
+    long version;
+    boolean retired; // emptied and dropped from the book; a fresh route replaces it
+    // where the vehicle last was for certain: the most recent pickup or dropoff it made
+    double originLat = Double.NaN, originLon = Double.NaN;
+    final List<Stop> stops = new ArrayList<>();
+    final Map<String, Leg> legs = new LinkedHashMap<>();
+    Set<Long> cells = new HashSet<>();
+    private int exclusive; // legs that did not agree to share or have no coordinates
+
+    PoolRoute(String vehicleId, String driverId) {
+        this.vehicleId = vehicleId;
+        this.driverId = driverId;
+    }
+
+    /** Whether every trip on the route agreed to share, so another may be inserted. */
+    boolean poolable() {
+        return exclusive == 0 && !legs.isEmpty();
+    }
+
+    int onboardSeats() {
+        int n = 0;
+        for (Leg l : legs.values()) if (l.onboard()) n += l.seats;
+        return n;
+    }
+
+    /** Places the pickup before {@code stops[pickupAt]} and the dropoff before {@code stops[dropoffAt]}. */
+    void insert(Leg leg, int pickupAt, int dropoffAt) {
+        add(leg);
+        stops.add(dropoffAt, new Stop(leg, false));
+        stops.add(pickupAt, new Stop(leg, true));
+        version++;
+    }
+
+    void append(Leg leg) {
+        add(leg);
+        if (leg.located) {
+            stops.add(new Stop(leg, true));
+            stops.add(new Stop(leg, false));
+        }
+        version++;
+    }
+
+    private void add(Leg leg) {
+        legs.put(leg.tripId, leg);
+        if (!leg.shared || !leg.located) exclusive++;
+    }
+
+    void pickedUp(String tripId, long atMs) {
+        Leg leg = legs.get(tripId);
+        if (leg == null) return;
+        leg.pickedUpAtMs = atMs;
+        stops.removeIf(s -> s.leg == leg && s.pickup);
+        originLat = leg.pickupLat;
+        originLon = leg.pickupLon;
+        version++;
+    }
+
+    void remove(String tripId, boolean droppedOff) {
+        Leg leg = legs.remove(tripId);
+        if (leg == null) return;
+        if (!leg.shared || !leg.located) exclusive--;
+        stops.removeIf(s -> s.leg == leg);
+        if (droppedOff && leg.located) {
+            originLat = leg.dropoffLat;
+            originLon = leg.dropoffLon;
+        }
+        version++;
+    }
+
+    /**
+     * Shortest distance from a point to the path through the remaining stops, starting at
+     * {@code fromLat/fromLon} (or the last known origin when that is NaN).
+     */
+    double distanceKm(double lat, double lon, double fromLat, double fromLon) {
+        if (Double.isNaN(fromLat)) {
+            fromLat = originLat;
+            fromLon = originLon;
+        }
+        double best = Double.MAX_VALUE, prevLat = fromLat, prevLon = fromLon;
+        for (Stop s : stops) {
+            best = Math.min(best, Double.isNaN(prevLat) ? Geo.haversineKm(lat, lon, s.lat(), s.lon())
+                    : segmentKm(lat, lon, prevLat, prevLon, s.lat(), s.lon()));
+            prevLat = s.lat();
+            prevLon = s.lon();
+        }
+        return best;
+    }
+
+    // point-to-segment distance on a local equirectangular projection, fine at city scale
+    static double segmentKm(double lat, double lon, double aLat, double aLon, double bLat, double bLon) {
+        double cos = Math.cos(Math.toRadians(lat));
+        double ax = (aLon - lon) * cos, ay = aLat - lat, bx = (bLon - lon) * cos, by = bLat - lat;
+        double dx = bx - ax, dy = by - ay, len = dx * dx + dy * dy;
+        double f = len == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len));
+        double px = ax + f * dx, py = ay + f * dy;
+        return Math.sqrt(px * px + py * py) * Geo.KM_PER_DEGREE;
+    }
+}
@@ -0,0 +1,230 @@
+package com.neurofleetx.pooling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.dispatch.Geo;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.routing.RoutingService;
+import com.neurofleetx.trip.TripStateMachine;
+
+/**
+ * In-memory book of every vehicle's remaining stops, kept in step with trip transitions
+ * and indexed by the grid cells its stops fall in. The pooling search only looks at
+ * routes with a stop near the new pickup, so its cost follows local density rather
+ * than the number of active routes. Rebuilt from the trips collection on startup.
+ */
+@Component
+public class PoolRoutes {
+    private static final Logger log = LoggerFactory.getLogger(PoolRoutes.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Value("${pooling.max-detour:0.5}")
+    private double maxDetour;
+
+    @Value("${pooling.max-wait-seconds:600}")
+    private long maxWaitSeconds;
+
+    @Value("${pooling.cell-degrees:0.01}")
+    private double cellDegrees;
+
+    private final Map<String, PoolRoute> routes = new ConcurrentHashMap<>();
+    private final Map<Long, Set<PoolRoute>> grid = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        Query q = Query.query(Criteria.where("status").in(TripStateMachine.ASSIGNED, TripStateMachine.IN_PROGRESS)
+                .and("vehicleId").ne(null)).with(Sort.by("requestedTime"));
+        // the stop order is not persisted; pickups still to make come first, in request order
+        List<Trip> active = mongoTemplate.find(q, Trip.class);
+        long now = System.currentTimeMillis();
+        for (Trip t : active) onTransition(t, null, TripStateMachine.ASSIGNED);
+        for (Trip t : active) {
+            if (!TripStateMachine.IN_PROGRESS.equals(t.getStatus())) continue;
+            PoolRoute r = routes.get(t.getVehicleId());
+            if (r == null) continue;
+            synchronized (r) {
+                r.pickedUp(t.getId(), t.getStartTime() == null ? now : t.getStartTime().toEpochMilli());
+                reindex(r);
+            }
+        }
+        log.info("Restored {} vehicle routes with {} active trips", routes.size(), active.size());
+    }
+
+    /** Mirrors a trip transition into its vehicle's route; {@code trip} as it is after the change. */
+    public void onTransition(Trip trip, String from, String to) {
+        if (trip.getVehicleId() == null) return;
+        if (TripStateMachine.ASSIGNED.equals(to)) {
+            while (true) {
+                PoolRoute r = routes.computeIfAbsent(trip.getVehicleId(), id -> new PoolRoute(id, trip.getDriverId()));
+                synchronized (r) {
+                    if (r.retired) continue;
+                    // a pooled insertion has already placed its stops
+                    if (!r.legs.containsKey(trip.getId())) r.append(leg(trip, System.currentTimeMillis()));
+                    reindex(r);
+                    return;
+                }
+            }
+        }
+        PoolRoute r = routes.get(trip.getVehicleId());
+        if (r == null) return;
+        synchronized (r) {
+            if (TripStateMachine.IN_PROGRESS.equals(to)) {
+                r.pickedUp(trip.getId(), System.currentTimeMillis());
+            } else if (TripStateMachine.COMPLETED.equals(to) || TripStateMachine.CANCELLED.equals(to)) {
+                r.remove(trip.getId(), TripStateMachine.COMPLETED.equals(to));
+                if (r.legs.isEmpty()) {
+                    r.retired = true;
+                    reindex(r);
+                    routes.remove(r.vehicleId, r);
+                    return;
+                }
+            }
+            reindex(r);
+        }
+    }
+
+    /**
+     * Whether the vehicle still has trips to serve. The lifecycle asks this before freeing a
+     * driver and vehicle, since a pooled vehicle stays BUSY until its last trip ends.
+     */
+    public boolean hasTrips(String vehicleId) {
+        PoolRoute r = vehicleId == null ? null : routes.get(vehicleId);
+        if (r == null) return false;
+        synchronized (r) {
+            return !r.retired && !r.legs.isEmpty();
+        }
+    }
+
+    public Map<String, Object> status() {
+        int trips = 0, pooled = 0;
+        for (PoolRoute r : routes.values()) {
+            synchronized (r) {
+                trips += r.legs.size();
+                if (r.legs.size() > 1) pooled++;
+            }
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("routes", routes.size());
+        m.put("trips", trips);
+        m.put("pooledRoutes", pooled);
+        m.put("gridCells", grid.size());
+        return m;
+    }
+
+    PoolRoute.Leg leg(Trip trip, long nowMs) {
+        Location p = trip.getPickupLocation(), d = trip.getDropoffLocation();
+        boolean located = p != null && p.getLatitude() != null && p.getLongitude() != null
+                && d != null && d.getLatitude() != null && d.getLongitude() != null;
+        double direct = 0;
+        if (located) {
+            direct = trip.getPredictedDurationSeconds() != null ? trip.getPredictedDurationSeconds()
+                    : routingService.etaSeconds(p.getLatitude(), p.getLongitude(), d.getLatitude(), d.getLongitude());
+        }
+        int seats = trip.getSeats() == null || trip.getSeats() < 1 ? 1 : trip.getSeats();
+        return new PoolRoute.Leg(trip.getId(), seats, Boolean.TRUE.equals(trip.getShared()), located,
+                located ? p.getLatitude() : Double.NaN, located ? p.getLongitude() : Double.NaN,
+                located ? d.getLatitude() : Double.NaN, located ? d.getLongitude() : Double.NaN,
+                direct * (1 + maxDetour), nowMs + maxWaitSeconds * 1000);
+    }
+
+    PoolRoute route(String vehicleId) {
+        return routes.get(vehicleId);
+    }
+
+    /** Routes whose path crosses a grid cell within {@code radiusKm} of the point; a superset, to be checked by distance. */
+    List<PoolRoute> near(double lat, double lon, double radiusKm) {
+        int dLat = (int) Math.ceil(radiusKm / (cellDegrees * Geo.KM_PER_DEGREE));
+        double cos = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        int dLon = (int) Math.ceil(radiusKm / (cellDegrees * Geo.KM_PER_DEGREE * cos));
+        long row = (long) Math.floor(lat / cellDegrees), col = (long) Math.floor(lon / cellDegrees);
+        Set<PoolRoute> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (long i = row - dLat; i <= row + dLat; i++) {
+            for (long j = col - dLon; j <= col + dLon; j++) {
+                // skip the corners of the square that lie wholly outside the circle
+                double di = Math.max(0, Math.abs(i - row) - 1) / (double) dLat, dj = Math.max(0, Math.abs(j - col) - 1) / (double) dLon;
+                if (di * di + dj * dj > 1) continue;
+                Set<PoolRoute> in = grid.get(key(i, j));
+                if (in != null) found.addAll(in);
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    /** Inserts a pooled trip's stops; the caller holds the route's monitor. */
+    void insert(PoolRoute r, PoolRoute.Leg leg, int pickupAt, int dropoffAt) {
+        r.insert(leg, pickupAt, dropoffAt);
+        reindex(r);
+    }
+
+    // caller holds the route's monitor
+    private void reindex(PoolRoute r) {
+        Set<Long> cells = new HashSet<>();
+        if (!r.retired) {
+            // every cell the path crosses, sampled at half a cell, so a route is found by where it goes and not just where it stops
+            double prevLat = r.originLat, prevLon = r.originLon;
+            for (PoolRoute.Stop s : r.stops) {
+                if (Double.isNaN(prevLat)) {
+                    prevLat = s.lat();
+                    prevLon = s.lon();
+                }
+                int steps = (int) Math.ceil(Math.max(Math.abs(s.lat() - prevLat), Math.abs(s.lon() - prevLon)) / cellDegrees * 2);
+                for (int i = 0; i <= steps; i++) {
+                    double f = steps == 0 ? 1 : (double) i / steps;
+                    cells.add(cell(prevLat + (s.lat() - prevLat) * f, prevLon + (s.lon() - prevLon) * f));
+                }
+                prevLat = s.lat();
+                prevLon = s.lon();
+            }
+        }
+        for (Long c : r.cells) {
+            if (cells.contains(c)) continue;
+            grid.computeIfPresent(c, (k, in) -> {
+                in.remove(r);
+                return in.isEmpty() ? null : in;
+            });
+        }
+        for (Long c : cells) {
+            if (r.cells.contains(c)) continue;
+            grid.compute(c, (k, in) -> {
+                if (in == null) in = ConcurrentHashMap.newKeySet();
+                in.add(r);
+                return in;
+            });
+        }
+        r.cells = cells;
+    }
+
+    private long cell(double lat, double lon) {
+        return key((long) Math.floor(lat / cellDegrees), (long) Math.floor(lon / cellDegrees));
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,291 @@
+package com.neurofleetx.pooling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.dispatch.DispatchEngine;
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.dispatch.FleetTable;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.model.VehicleType;
+import com.neurofleetx.repository.VehicleRepository;
+import com.neurofleetx.routing.RoutingService;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripEventLog;
+import com.neurofleetx.trip.TripStateMachine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Offers a REQUESTED trip to vehicles already serving shared trips. For each route with a
+ * stop near the pickup it tries every pickup/dropoff position pair, keeps those that respect
+ * seat capacity, every rider's pickup deadline and every rider's ride-time limit, and takes
+ * the one that lengthens its route least. The trip then joins that vehicle's route, and the
+ * vehicle stays BUSY until the last of its trips ends.
+ */
+@Service
+public class PoolingService {
+    public enum Outcome { POOLED, TRIP_NOT_FOUND, TRIP_NOT_REQUESTED, NOT_SHARED, NO_ROUTE }
+
+    public static final class Result {
+        private final Outcome outcome;
+        private final Trip trip;
+        private final long pickupEtaSeconds;
+        private final long addedSeconds;
+
+        Result(Outcome outcome, Trip trip, long pickupEtaSeconds, long addedSeconds) {
+            this.outcome = outcome;
+            this.trip = trip;
+            this.pickupEtaSeconds = pickupEtaSeconds;
+            this.addedSeconds = addedSeconds;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public Trip getTrip() { return trip; }
+        /** From now until the vehicle reaches the pickup, following its new route. */
+        public long getPickupEtaSeconds() { return pickupEtaSeconds; }
+        /** How much longer the vehicle's whole route became. */
+        public long getAddedSeconds() { return addedSeconds; }
+    }
+
+    private static final class Insertion {
+        final PoolRoute route;
+        final long version;
+        final String driverId;
+        final int pickupAt, dropoffAt;
+        final double pickupEta, added;
+
+        Insertion(PoolRoute route, long version, String driverId, int pickupAt, int dropoffAt, double pickupEta, double added) {
+            this.route = route;
+            this.version = version;
+            this.driverId = driverId;
+            this.pickupAt = pickupAt;
+            this.dropoffAt = dropoffAt;
+            this.pickupEta = pickupEta;
+            this.added = added;
+        }
+    }
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PoolRoutes poolRoutes;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pooling.search-radius-km:2}")
+    private double searchRadiusKm;
+
+    @Value("${pooling.max-candidates:50}")
+    private int maxCandidates;
+
+    public Result pool(String tripId) {
+        Result result = tryPool(tripId);
+        meterRegistry.counter("fleet.pooling", "outcome", result.getOutcome().name()).increment();
+        return result;
+    }
+
+    private Result tryPool(String tripId) {
+        Trip trip = mongoTemplate.findById(tripId, Trip.class);
+        if (trip == null) return new Result(Outcome.TRIP_NOT_FOUND, null, 0, 0);
+        if (!TripStateMachine.REQUESTED.equals(trip.getStatus())) return new Result(Outcome.TRIP_NOT_REQUESTED, null, 0, 0);
+        long now = System.currentTimeMillis();
+        PoolRoute.Leg leg = poolRoutes.leg(trip, now);
+        if (!leg.shared) return new Result(Outcome.NOT_SHARED, null, 0, 0);
+        if (!leg.located) return new Result(Outcome.NO_ROUTE, null, 0, 0);
+
+        // a route that changed between search and commit is searched again, once
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Insertion best = search(leg, now);
+            if (best == null) return new Result(Outcome.NO_ROUTE, null, 0, 0);
+            Trip claimed;
+            synchronized (best.route) {
+                if (best.route.retired || best.route.version != best.version) continue;
+                claimed = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("id").is(tripId).and("status").is(TripStateMachine.REQUESTED)),
+                        new Update().set("status", TripStateMachine.ASSIGNED).set("driverId", best.driverId)
+                                .set("vehicleId", best.route.vehicleId),
+                        RETURN_NEW, Trip.class);
+                if (claimed == null) return new Result(Outcome.TRIP_NOT_REQUESTED, null, 0, 0);
+                // holding the route's monitor keeps its last trip from ending, and the vehicle being freed, meanwhile
+                poolRoutes.insert(best.route, leg, best.pickupAt, best.dropoffAt);
+            }
+            entityCaches.evict(EntityCacheConfig.TRIPS, tripId);
+            dispatchEngine.withdraw(tripId);
+            tripEventLog.append(claimed, TripStateMachine.REQUESTED, TripStateMachine.ASSIGNED);
+            fleetEventBus.publish("TRIP", tripId, TripStateMachine.ASSIGNED, null, null);
+            return new Result(Outcome.POOLED, claimed, Math.round(best.pickupEta), Math.round(best.added));
+        }
+        return new Result(Outcome.NO_ROUTE, null, 0, 0);
+    }
+
+    private Insertion search(PoolRoute.Leg leg, long now) {
+        List<PoolRoute> near = poolRoutes.near(leg.pickupLat, leg.pickupLon, searchRadiusKm);
+        FleetTable.Snapshot vehicles = fleetIndex.vehicles().table().snapshot();
+        // closest paths first, by how far the pickup is from the path the vehicle still has to drive
+        List<double[]> ranked = new ArrayList<>(near.size());
+        for (int i = 0; i < near.size(); i++) {
+            PoolRoute r = near.get(i);
+            synchronized (r) {
+                if (r.retired || !r.poolable()) continue;
+            }
+            int slot = vehicles.slot(r.vehicleId);
+            boolean located = slot >= 0 && vehicles.located(slot);
+            double closest;
+            synchronized (r) {
+                closest = r.distanceKm(leg.pickupLat, leg.pickupLon, located ? vehicles.lat(slot) : Double.NaN,
+                        located ? vehicles.lon(slot) : Double.NaN);
+            }
+            if (closest <= searchRadiusKm) ranked.add(new double[] { closest, i });
+        }
+        ranked.sort(Comparator.comparingDouble(a -> a[0]));
+
+        Insertion best = null;
+        for (int k = 0; k < ranked.size() && k < maxCandidates; k++) {
+            PoolRoute r = near.get((int) ranked.get(k)[1]);
+            int slot = vehicles.slot(r.vehicleId);
+            if (slot < 0 || !vehicles.located(slot)) continue;
+            Insertion ins = evaluate(r, leg, vehicles.lat(slot), vehicles.lon(slot), now);
+            if (ins != null && (best == null || ins.added < best.added)) best = ins;
+        }
+        return best;
+    }
+
+    /** Cheapest feasible insertion of {@code leg} into {@code r}, or null. */
+    private Insertion evaluate(PoolRoute r, PoolRoute.Leg leg, double vehicleLat, double vehicleLon, long now) {
+        int capacity = capacity(r);
+        List<PoolRoute.Stop> stops;
+        long version;
+        String driverId;
+        int onboard;
+        synchronized (r) {
+            stops = new ArrayList<>(r.stops);
+            version = r.version;
+            driverId = r.driverId;
+            onboard = r.onboardSeats();
+        }
+        if (leg.seats > capacity) return null;
+
+        // points: 0 is the vehicle, 1..n the current stops, n+1 the new pickup, n+2 the new dropoff
+        int n = stops.size(), m = n + 3, pickup = n + 1, dropoff = n + 2;
+        double[] lat = new double[m], lon = new double[m];
+        PoolRoute.Leg[] legOf = new PoolRoute.Leg[m];
+        boolean[] isPickup = new boolean[m];
+        int[] partner = new int[m];
+        lat[0] = vehicleLat;
+        lon[0] = vehicleLon;
+        for (int i = 0; i < n; i++) {
+            PoolRoute.Stop s = stops.get(i);
+            lat[i + 1] = s.lat();
+            lon[i + 1] = s.lon();
+            legOf[i + 1] = s.leg;
+            isPickup[i + 1] = s.pickup;
+            partner[i + 1] = -1;
+        }
+        lat[pickup] = leg.pickupLat; lon[pickup] = leg.pickupLon; legOf[pickup] = leg; isPickup[pickup] = true;
+        lat[dropoff] = leg.dropoffLat; lon[dropoff] = leg.dropoffLon; legOf[dropoff] = leg;
+        partner[dropoff] = pickup;
+        for (int i = 1; i <= n; i++) {
+            if (isPickup[i]) continue;
+            for (int j = 1; j <= n; j++) if (isPickup[j] && legOf[j] == legOf[i]) partner[i] = j;
+        }
+        double[][] t = routingService.etaSeconds(lat, lon, lat, lon);
+
+        double base = 0;
+        for (int i = 1; i <= n; i++) base += t[i - 1][i];
+
+        int[] order = new int[n + 2];
+        double[] at = new double[m];
+        Insertion best = null;
+        for (int i = 0; i <= n; i++) {
+            for (int j = i; j <= n; j++) {
+                int o = 0;
+                for (int s = 1; s <= n; s++) {
+                    if (s - 1 == i) order[o++] = pickup;
+                    if (s - 1 == j) order[o++] = dropoff;
+                    order[o++] = s;
+                }
+                if (i == n) order[o++] = pickup;
+                if (j == n) order[o++] = dropoff;
+                double end = simulate(order, t, legOf, isPickup, partner, at, onboard, capacity, now);
+                if (Double.isNaN(end)) continue;
+                double added = end - base;
+                if (best == null || added < best.added) best = new Insertion(r, version, driverId, i, j, at[pickup], added);
+            }
+        }
+        return best;
+    }
+
+    // seconds from now to the last stop, or NaN if any seat, pickup or ride limit is broken
+    static double simulate(int[] order, double[][] t, PoolRoute.Leg[] legOf, boolean[] isPickup, int[] partner,
+                                   double[] at, int onboard, int capacity, long now) {
+        double time = 0;
+        int load = onboard, prev = 0;
+        for (int p : order) {
+            time += t[prev][p];
+            prev = p;
+            at[p] = time;
+            PoolRoute.Leg l = legOf[p];
+            if (isPickup[p]) {
+                load += l.seats;
+                if (load > capacity || now + time * 1000 > l.pickupByMs) return Double.NaN;
+            } else {
+                load -= l.seats;
+                double ride = partner[p] >= 0 ? time - at[partner[p]] : (now - l.pickedUpAtMs) / 1000.0 + time;
+                if (ride > l.rideLimitSeconds) return Double.NaN;
+            }
+        }
+        return time;
+    }
+
+    private int capacity(PoolRoute r) {
+        synchronized (r) {
+            if (r.capacity > 0) return r.capacity;
+        }
+        Vehicle v = vehicleRepository.findById(r.vehicleId).orElse(null);
+        int seats = v == null ? VehicleType.OTHER.seats()
+                : v.getCapacity() != null && v.getCapacity() > 0 ? v.getCapacity() : VehicleType.of(v.getType()).seats();
+        synchronized (r) {
+            r.capacity = seats;
+        }
+        return seats;
+    }
+}
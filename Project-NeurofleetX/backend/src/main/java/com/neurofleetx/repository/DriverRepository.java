@@ -1,9 +1,54 @@
 package com.neurofleetx.repository;
 
+import com.neurofleetx.cache.EntityCacheConfig;
 import com.neurofleetx.model.Driver;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
+import java.util.Optional;
 
+@CacheConfig(cacheNames = EntityCacheConfig.DRIVERS)
 public interface DriverRepository extends MongoRepository<Driver, String> {
+    @Override
+    @Cacheable(unless = "#result == null")
+    Optional<Driver> findById(String id);
+
+    @Override
+    @CacheEvict(key = "#result.id")
+    <S extends Driver> S save(S entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends Driver> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(key = "#p0.id")
+    void delete(Driver entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAllById(Iterable<? extends String> ids);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll(Iterable<? extends Driver> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll();
+
     List<Driver> findByStatus(String status);
+
+    // $geoNear over the 2dsphere position index, nearest first
+    List<GeoResult<Driver>> findByStatusAndPositionNear(String status, GeoJsonPoint point, Distance maxDistance, Pageable page);
 }
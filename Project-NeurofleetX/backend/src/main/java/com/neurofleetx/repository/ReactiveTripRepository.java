@@ -0,0 +1,9 @@
+package com.neurofleetx.repository;
+
+import com.neurofleetx.model.Trip;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+// not behind the trips cache (a cached Mono would be evicted before the write runs); it only
+// inserts new trips, and updates go through ReactiveTripLifecycle, which evicts via EntityCaches
+public interface ReactiveTripRepository extends ReactiveMongoRepository<Trip, String> {
+}
@@ -1,9 +1,48 @@
 package com.neurofleetx.repository;
 
+import com.neurofleetx.cache.EntityCacheConfig;
 import com.neurofleetx.model.Trip;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
+import java.util.Optional;
 
+@CacheConfig(cacheNames = EntityCacheConfig.TRIPS)
 public interface TripRepository extends MongoRepository<Trip, String> {
+    @Override
+    @Cacheable(unless = "#result == null")
+    Optional<Trip> findById(String id);
+
+    @Override
+    @CacheEvict(key = "#result.id")
+    <S extends Trip> S save(S entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends Trip> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(key = "#p0.id")
+    void delete(Trip entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAllById(Iterable<? extends String> ids);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll(Iterable<? extends Trip> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll();
+
     List<Trip> findByDriverId(String driverId);
+    List<Trip> findByStatus(String status);
 }
@@ -1,9 +1,45 @@
 package com.neurofleetx.repository;
 
+import com.neurofleetx.cache.EntityCacheConfig;
 import com.neurofleetx.model.User;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.List;
 import java.util.Optional;
 
+@CacheConfig(cacheNames = EntityCacheConfig.USERS_BY_EMAIL)
 public interface UserRepository extends MongoRepository<User, String> {
+    @Cacheable(unless = "#result == null")
     Optional<User> findByEmail(String email);
+
+    @Override
+    @CacheEvict(key = "#result.email")
+    <S extends User> S save(S entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends User> List<S> saveAll(Iterable<S> entities);
+
+    // keyed by email, so an id-based delete cannot target a single entry
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(key = "#p0.email")
+    void delete(User entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAllById(Iterable<? extends String> ids);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll(Iterable<? extends User> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll();
 }
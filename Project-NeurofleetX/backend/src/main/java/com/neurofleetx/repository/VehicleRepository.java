@@ -1,10 +1,56 @@
 package com.neurofleetx.repository;
 
+import com.neurofleetx.cache.EntityCacheConfig;
 import com.neurofleetx.model.Vehicle;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
+import java.util.Optional;
 
+@CacheConfig(cacheNames = EntityCacheConfig.VEHICLES)
 public interface VehicleRepository extends MongoRepository<Vehicle, String> {
+    @Override
+    @Cacheable(unless = "#result == null")
+    Optional<Vehicle> findById(String id);
+
+    @Override
+    @CacheEvict(key = "#result.id")
+    <S extends Vehicle> S save(S entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends Vehicle> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(key = "#p0.id")
+    void delete(Vehicle entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAllById(Iterable<? extends String> ids);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll(Iterable<? extends Vehicle> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll();
+
     List<Vehicle> findByStatus(String status);
     List<Vehicle> findByDriverId(String driverId);
+
+    // $geoNear over the 2dsphere position index, nearest first
+    List<GeoResult<Vehicle>> findByStatusAndPositionNear(String status, GeoJsonPoint point, Distance maxDistance, Pageable page);
+    List<GeoResult<Vehicle>> findByStatusAndTypeAndPositionNear(String status, String type, GeoJsonPoint point, Distance maxDistance, Pageable page);
 }
@@ -0,0 +1,464 @@
+package com.neurofleetx.routing;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Contraction hierarchy over a {@link RoadGraph}. Nodes are contracted one at a time,
+ * cheapest first by edge difference, and a shortcut is added between two neighbours
+ * whenever a bounded witness search finds no path around the node being removed.
+ * Queries then only ever move to higher-ranked nodes: a forward search over the
+ * upward graph from the source meets a backward search over the (reversed) downward
+ * graph from the target, so each side settles a few hundred nodes even on city-sized
+ * graphs. Many-to-many matrices use the bucket method: one backward search per
+ * target and one forward search per source. Only travel times are returned;
+ * shortcuts are not unpacked into paths.
+ */
+public final class ContractionHierarchy {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int nodes;
+    private final int shortcuts;
+    // upFirst/upHead/upWeight: edges v -> w with rank(w) > rank(v)
+    private final int[] upFirst, upHead, upWeight;
+    // downFirst/downHead/downWeight: edges w -> v with rank(w) > rank(v), stored at v
+    private final int[] downFirst, downHead, downWeight;
+    // search state is a few arrays of node count each, so it is pooled rather than per thread
+    private final ConcurrentLinkedQueue<Search> pool = new ConcurrentLinkedQueue<>();
+
+    private ContractionHierarchy(int nodes, int shortcuts, int[] upFirst, int[] upHead, int[] upWeight,
+                                 int[] downFirst, int[] downHead, int[] downWeight) {
+        this.nodes = nodes;
+        this.shortcuts = shortcuts;
+        this.upFirst = upFirst;
+        this.upHead = upHead;
+        this.upWeight = upWeight;
+        this.downFirst = downFirst;
+        this.downHead = downHead;
+        this.downWeight = downWeight;
+    }
+
+    /** @param settleLimit nodes a witness search may settle before a shortcut is assumed necessary */
+    public static ContractionHierarchy build(RoadGraph graph, int settleLimit) {
+        return new Builder(graph, settleLimit).run();
+    }
+
+    public int nodeCount() { return nodes; }
+    public int shortcutCount() { return shortcuts; }
+
+    /** Travel time in milliseconds from node {@code s} to node {@code t}, or {@link #UNREACHABLE}. */
+    public int query(int s, int t) {
+        if (s == t) return 0;
+        Search q = acquire();
+        try {
+            q.round++;
+            q.setForward(s, 0);
+            q.setBackward(t, 0);
+            q.forwardHeap.push(0, s);
+            q.backwardHeap.push(0, t);
+            long best = UNREACHABLE;
+            while (true) {
+                boolean forwardDone = q.forwardHeap.isEmpty() || q.forwardHeap.peekKey() >= best;
+                boolean backwardDone = q.backwardHeap.isEmpty() || q.backwardHeap.peekKey() >= best;
+                if (forwardDone && backwardDone) break;
+                if (!forwardDone && (backwardDone || q.forwardHeap.peekKey() <= q.backwardHeap.peekKey())) {
+                    long e = q.forwardHeap.pop();
+                    int d = MinHeap.key(e), v = MinHeap.node(e);
+                    if (d > q.forward(v)) continue;
+                    int other = q.backward(v);
+                    if (other != UNREACHABLE) best = Math.min(best, (long) d + other);
+                    if (!stalled(v, d, q, true)) relax(v, d, q, true);
+                } else {
+                    long e = q.backwardHeap.pop();
+                    int d = MinHeap.key(e), v = MinHeap.node(e);
+                    if (d > q.backward(v)) continue;
+                    int other = q.forward(v);
+                    if (other != UNREACHABLE) best = Math.min(best, (long) d + other);
+                    if (!stalled(v, d, q, false)) relax(v, d, q, false);
+                }
+            }
+            return (int) Math.min(best, UNREACHABLE);
+        } finally {
+            release(q);
+        }
+    }
+
+    /**
+     * Travel times in milliseconds, {@code [source][target]}; negative node ids (unsnapped
+     * points) and unreachable pairs come back as {@link #UNREACHABLE}.
+     */
+    public int[][] matrix(int[] sources, int[] targets) {
+        int[][] out = new int[sources.length][targets.length];
+        for (int[] row : out) Arrays.fill(row, UNREACHABLE);
+        Search q = acquire();
+        try {
+            q.bucketRound++;
+            q.bucketNext.clear();
+            q.bucketTarget.clear();
+            q.bucketDist.clear();
+            for (int j = 0; j < targets.length; j++) {
+                if (targets[j] < 0) continue;
+                exhaust(targets[j], q, false);
+                for (int k = 0; k < q.settled.size(); k++) {
+                    int v = q.settled.get(k);
+                    q.bucketNext.add(q.bucketStamp[v] == q.bucketRound ? q.bucketHead[v] : -1);
+                    q.bucketTarget.add(j);
+                    q.bucketDist.add(q.backward(v));
+                    q.bucketHead[v] = q.bucketNext.size() - 1;
+                    q.bucketStamp[v] = q.bucketRound;
+                }
+            }
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] < 0) continue;
+                exhaust(sources[i], q, true);
+                int[] row = out[i];
+                for (int k = 0; k < q.settled.size(); k++) {
+                    int v = q.settled.get(k);
+                    if (q.bucketStamp[v] != q.bucketRound) continue;
+                    long d = q.forward(v);
+                    for (int b = q.bucketHead[v]; b >= 0; b = q.bucketNext.get(b)) {
+                        long total = d + q.bucketDist.get(b);
+                        int j = q.bucketTarget.get(b);
+                        if (total < row[j]) row[j] = (int) total;
+                    }
+                }
+            }
+            return out;
+        } finally {
+            release(q);
+        }
+    }
+
+    // full upward search from one node; leaves the unstalled settled nodes in q.settled
+    private void exhaust(int from, Search q, boolean forward) {
+        q.round++;
+        q.settled.clear();
+        MinHeap heap = forward ? q.forwardHeap : q.backwardHeap;
+        heap.clear();
+        if (forward) q.setForward(from, 0);
+        else q.setBackward(from, 0);
+        heap.push(0, from);
+        while (!heap.isEmpty()) {
+            long e = heap.pop();
+            int d = MinHeap.key(e), v = MinHeap.node(e);
+            if (d > (forward ? q.forward(v) : q.backward(v))) continue;
+            if (stalled(v, d, q, forward)) continue;
+            q.settled.add(v);
+            relax(v, d, q, forward);
+        }
+    }
+
+    private void relax(int v, int d, Search q, boolean forward) {
+        int[] first = forward ? upFirst : downFirst, head = forward ? upHead : downHead, weight = forward ? upWeight : downWeight;
+        MinHeap heap = forward ? q.forwardHeap : q.backwardHeap;
+        for (int e = first[v]; e < first[v + 1]; e++) {
+            int x = head[e];
+            long nd = (long) d + weight[e];
+            if (nd >= (forward ? q.forward(x) : q.backward(x))) continue;
+            if (forward) q.setForward(x, (int) nd);
+            else q.setBackward(x, (int) nd);
+            heap.push((int) nd, x);
+        }
+    }
+
+    // stall-on-demand: v is not on a shortest up-path if a higher node already reaches it more cheaply
+    private boolean stalled(int v, int d, Search q, boolean forward) {
+        int[] first = forward ? downFirst : upFirst, head = forward ? downHead : upHead, weight = forward ? downWeight : upWeight;
+        for (int e = first[v]; e < first[v + 1]; e++) {
+            int x = head[e];
+            int dx = forward ? q.forward(x) : q.backward(x);
+            if (dx != UNREACHABLE && (long) dx + weight[e] < d) return true;
+        }
+        return false;
+    }
+
+    private Search acquire() {
+        Search q = pool.poll();
+        return q != null ? q : new Search(nodes);
+    }
+
+    private void release(Search q) {
+        q.forwardHeap.clear();
+        q.backwardHeap.clear();
+        pool.offer(q);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(nodes);
+        out.writeInt(shortcuts);
+        GraphIO.write(out, upFirst);
+        GraphIO.write(out, upHead);
+        GraphIO.write(out, upWeight);
+        GraphIO.write(out, downFirst);
+        GraphIO.write(out, downHead);
+        GraphIO.write(out, downWeight);
+    }
+
+    static ContractionHierarchy read(DataInputStream in) throws IOException {
+        int nodes = in.readInt(), shortcuts = in.readInt();
+        return new ContractionHierarchy(nodes, shortcuts, GraphIO.readInts(in), GraphIO.readInts(in), GraphIO.readInts(in),
+                GraphIO.readInts(in), GraphIO.readInts(in), GraphIO.readInts(in));
+    }
+
+    /** Per-query scratch space; distances are valid only where the stamp matches the round. */
+    private static final class Search {
+        final int[] forwardDist, forwardStamp, backwardDist, backwardStamp;
+        final int[] bucketHead, bucketStamp;
+        final MinHeap forwardHeap = new MinHeap(), backwardHeap = new MinHeap();
+        final IntList settled = new IntList();
+        final IntList bucketNext = new IntList(), bucketTarget = new IntList(), bucketDist = new IntList();
+        int round, bucketRound;
+
+        Search(int n) {
+            forwardDist = new int[n];
+            forwardStamp = new int[n];
+            backwardDist = new int[n];
+            backwardStamp = new int[n];
+            bucketHead = new int[n];
+            bucketStamp = new int[n];
+        }
+
+        int forward(int v) { return forwardStamp[v] == round ? forwardDist[v] : UNREACHABLE; }
+        int backward(int v) { return backwardStamp[v] == round ? backwardDist[v] : UNREACHABLE; }
+
+        void setForward(int v, int d) {
+            forwardStamp[v] = round;
+            forwardDist[v] = d;
+        }
+
+        void setBackward(int v, int d) {
+            backwardStamp[v] = round;
+            backwardDist[v] = d;
+        }
+    }
+
+    /** Mutable adjacency used only while contracting; dropped once the hierarchy is built. */
+    private static final class Builder {
+        // keeps heap keys non-negative, edge differences can be below zero
+        private static final int PRIORITY_OFFSET = 1 << 20;
+        // ordering only needs an estimate, so priority updates use a much cheaper witness search
+        private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+        final int n, settleLimit;
+        final int[][] outTo, outWeight, inFrom, inWeight;
+        final int[] outSize, inSize, deleted, level, priority;
+        final boolean[] contracted;
+        final int[] dist, stamp;
+        int round;
+        final MinHeap heap = new MinHeap();
+        final IntList shortcutFrom = new IntList(), shortcutTo = new IntList(), shortcutWeight = new IntList();
+        final IntList upFrom, upTo, upWeight, downFrom, downTo, downWeight;
+        int shortcuts;
+
+        Builder(RoadGraph g, int settleLimit) {
+            this.n = g.nodeCount();
+            this.settleLimit = settleLimit;
+            outTo = new int[n][];
+            outWeight = new int[n][];
+            inFrom = new int[n][];
+            inWeight = new int[n][];
+            outSize = new int[n];
+            inSize = new int[n];
+            deleted = new int[n];
+            level = new int[n];
+            priority = new int[n];
+            contracted = new boolean[n];
+            dist = new int[n];
+            stamp = new int[n];
+            int m = g.edgeCount();
+            upFrom = new IntList(m);
+            upTo = new IntList(m);
+            upWeight = new IntList(m);
+            downFrom = new IntList(m);
+            downTo = new IntList(m);
+            downWeight = new IntList(m);
+            for (int v = 0; v < n; v++) {
+                for (int e = g.first[v]; e < g.first[v + 1]; e++) addEdge(v, g.head[e], g.weightMs[e]);
+            }
+        }
+
+        ContractionHierarchy run() {
+            MinHeap queue = new MinHeap();
+            for (int v = 0; v < n; v++) {
+                priority[v] = priorityOf(v);
+                queue.push(priority[v] + PRIORITY_OFFSET, v);
+            }
+            IntList neighbours = new IntList();
+            while (!queue.isEmpty()) {
+                long e = queue.pop();
+                int v = MinHeap.node(e);
+                if (contracted[v] || MinHeap.key(e) - PRIORITY_OFFSET != priority[v]) continue;
+                // lazy update: the queued priority may be stale after earlier contractions nearby
+                int p = priorityOf(v);
+                if (p > priority[v]) {
+                    priority[v] = p;
+                    queue.push(p + PRIORITY_OFFSET, v);
+                    continue;
+                }
+                neighbours.clear();
+                for (int i = 0; i < outSize[v]; i++) neighbours.add(outTo[v][i]);
+                for (int i = 0; i < inSize[v]; i++) neighbours.add(inFrom[v][i]);
+                contract(v);
+                for (int i = 0; i < neighbours.size(); i++) {
+                    int w = neighbours.get(i);
+                    deleted[w]++;
+                    level[w] = Math.max(level[w], level[v] + 1);
+                    int pw = priorityOf(w);
+                    if (pw != priority[w]) {
+                        priority[w] = pw;
+                        queue.push(pw + PRIORITY_OFFSET, w);
+                    }
+                }
+            }
+            int[][] up = csr(n, upFrom, upTo, upWeight), down = csr(n, downFrom, downTo, downWeight);
+            return new ContractionHierarchy(n, shortcuts, up[0], up[1], up[2], down[0], down[1], down[2]);
+        }
+
+        private int priorityOf(int v) {
+            return 2 * (shortcutsFor(v, false) - outSize[v] - inSize[v]) + deleted[v] + level[v];
+        }
+
+        private void contract(int v) {
+            shortcutFrom.clear();
+            shortcutTo.clear();
+            shortcutWeight.clear();
+            shortcutsFor(v, true);
+            // every remaining neighbour is contracted later, so these edges all lead upward
+            for (int i = 0; i < outSize[v]; i++) {
+                upFrom.add(v);
+                upTo.add(outTo[v][i]);
+                upWeight.add(outWeight[v][i]);
+                remove(inFrom, inWeight, inSize, outTo[v][i], v);
+            }
+            for (int i = 0; i < inSize[v]; i++) {
+                downFrom.add(v);
+                downTo.add(inFrom[v][i]);
+                downWeight.add(inWeight[v][i]);
+                remove(outTo, outWeight, outSize, inFrom[v][i], v);
+            }
+            contracted[v] = true;
+            outTo[v] = outWeight[v] = inFrom[v] = inWeight[v] = null;
+            outSize[v] = inSize[v] = 0;
+            for (int k = 0; k < shortcutFrom.size(); k++) {
+                if (addEdge(shortcutFrom.get(k), shortcutTo.get(k), shortcutWeight.get(k))) shortcuts++;
+            }
+        }
+
+        // counts (and when recording, collects) the shortcuts removing v would need
+        private int shortcutsFor(int v, boolean record) {
+            int needed = 0;
+            for (int i = 0; i < inSize[v]; i++) {
+                int u = inFrom[v][i], wIn = inWeight[v][i];
+                int limit = -1;
+                for (int j = 0; j < outSize[v]; j++) {
+                    if (outTo[v][j] != u) limit = Math.max(limit, wIn + outWeight[v][j]);
+                }
+                if (limit < 0) continue;
+                witness(u, v, limit, record ? settleLimit : Math.min(settleLimit, SIMULATION_SETTLE_LIMIT));
+                for (int j = 0; j < outSize[v]; j++) {
+                    int x = outTo[v][j];
+                    if (x == u) continue;
+                    int via = wIn + outWeight[v][j];
+                    if (distance(x) <= via) continue;
+                    needed++;
+                    if (record) {
+                        shortcutFrom.add(u);
+                        shortcutTo.add(x);
+                        shortcutWeight.add(via);
+                    }
+                }
+            }
+            return needed;
+        }
+
+        // Dijkstra from u that avoids v, stops past limit or after maxSettled nodes
+        private void witness(int u, int v, int limit, int maxSettled) {
+            round++;
+            heap.clear();
+            stamp[u] = round;
+            dist[u] = 0;
+            heap.push(0, u);
+            int settled = 0;
+            while (!heap.isEmpty()) {
+                long e = heap.pop();
+                int d = MinHeap.key(e), w = MinHeap.node(e);
+                if (d > distance(w)) continue;
+                if (d > limit || ++settled > maxSettled) break;
+                for (int i = 0; i < outSize[w]; i++) {
+                    int x = outTo[w][i];
+                    if (x == v) continue;
+                    int nd = d + outWeight[w][i];
+                    if (nd < distance(x)) {
+                        stamp[x] = round;
+                        dist[x] = nd;
+                        heap.push(nd, x);
+                    }
+                }
+            }
+        }
+
+        private int distance(int x) {
+            return stamp[x] == round ? dist[x] : UNREACHABLE;
+        }
+
+        /** Adds u -> x or lowers its weight; true if a new edge was appended. */
+        private boolean addEdge(int u, int x, int w) {
+            if (u == x) return false;
+            for (int i = 0; i < outSize[u]; i++) {
+                if (outTo[u][i] != x) continue;
+                if (w < outWeight[u][i]) {
+                    outWeight[u][i] = w;
+                    for (int j = 0; j < inSize[x]; j++) {
+                        if (inFrom[x][j] == u) {
+                            inWeight[x][j] = w;
+                            break;
+                        }
+                    }
+                }
+                return false;
+            }
+            append(outTo, outWeight, outSize, u, x, w);
+            append(inFrom, inWeight, inSize, x, u, w);
+            return true;
+        }
+
+        private static void append(int[][] to, int[][] weight, int[] size, int v, int x, int w) {
+            if (to[v] == null) {
+                to[v] = new int[4];
+                weight[v] = new int[4];
+            } else if (size[v] == to[v].length) {
+                to[v] = Arrays.copyOf(to[v], size[v] * 2);
+                weight[v] = Arrays.copyOf(weight[v], size[v] * 2);
+            }
+            to[v][size[v]] = x;
+            weight[v][size[v]] = w;
+            size[v]++;
+        }
+
+        private static void remove(int[][] to, int[][] weight, int[] size, int v, int x) {
+            for (int i = 0; i < size[v]; i++) {
+                if (to[v][i] != x) continue;
+                int last = --size[v];
+                to[v][i] = to[v][last];
+                weight[v][i] = weight[v][last];
+                return;
+            }
+        }
+
+        private static int[][] csr(int n, IntList from, IntList to, IntList weight) {
+            int[] first = new int[n + 1];
+            for (int e = 0; e < from.size(); e++) first[from.get(e) + 1]++;
+            for (int v = 0; v < n; v++) first[v + 1] += first[v];
+            int[] head = new int[from.size()], w = new int[from.size()], fill = first.clone();
+            for (int e = 0; e < from.size(); e++) {
+                int slot = fill[from.get(e)]++;
+                head[slot] = to.get(e);
+                w[slot] = weight.get(e);
+            }
+            return new int[][] { first, head, w };
+        }
+    }
+}
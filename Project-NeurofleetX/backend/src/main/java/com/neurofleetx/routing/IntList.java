@@ -0,0 +1,29 @@
+package com.neurofleetx.routing;
+
+import java.util.Arrays;
+
+/** Growable int array, used while graphs are being built. */
+final class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(16);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 4)];
+    }
+
+    void add(int v) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = v;
+    }
+
+    int get(int i) { return values[i]; }
+    void set(int i, int v) { values[i] = v; }
+    int size() { return size; }
+    void clear() { size = 0; }
+
+    int[] toArray() { return Arrays.copyOf(values, size); }
+}
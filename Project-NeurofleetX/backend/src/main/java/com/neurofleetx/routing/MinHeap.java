@@ -0,0 +1,46 @@
+package com.neurofleetx.routing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of (key, node) pairs packed into longs, with the key in the high
+ * 32 bits. There is no decrease-key: callers push again and skip stale pops.
+ */
+final class MinHeap {
+    private long[] heap = new long[64];
+    private int size;
+
+    void push(int key, int node) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        long e = ((long) key << 32) | (node & 0xffffffffL);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= e) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = e;
+    }
+
+    /** Packed top entry; use {@link #key} and {@link #node} to unpack. */
+    long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        for (int child; (child = 2 * i + 1) < size; i = child) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    int peekKey() { return key(heap[0]); }
+    boolean isEmpty() { return size == 0; }
+    void clear() { size = 0; }
+
+    static int key(long e) { return (int) (e >> 32); }
+    static int node(long e) { return (int) e; }
+}
@@ -0,0 +1,210 @@
+package com.neurofleetx.routing;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.neurofleetx.dispatch.Geo;
+
+/**
+ * Streams an OSM XML extract (.osm or .osm.gz) into a {@link RoadGraph} of the ways a
+ * car can drive on. OSM files list all nodes before the ways, so one pass suffices:
+ * node coordinates go into primitive arrays keyed by an open-addressing id map, and
+ * each way turns into edges between consecutive nodes as soon as it ends. Nodes no
+ * way uses are dropped at the end.
+ */
+public final class OsmGraphReader {
+    private static final Map<String, Integer> SPEED_KMH = new HashMap<>();
+    static {
+        SPEED_KMH.put("motorway", 100);
+        SPEED_KMH.put("motorway_link", 60);
+        SPEED_KMH.put("trunk", 80);
+        SPEED_KMH.put("trunk_link", 50);
+        SPEED_KMH.put("primary", 60);
+        SPEED_KMH.put("primary_link", 45);
+        SPEED_KMH.put("secondary", 50);
+        SPEED_KMH.put("secondary_link", 40);
+        SPEED_KMH.put("tertiary", 40);
+        SPEED_KMH.put("tertiary_link", 35);
+        SPEED_KMH.put("unclassified", 30);
+        SPEED_KMH.put("residential", 25);
+        SPEED_KMH.put("road", 25);
+        SPEED_KMH.put("service", 15);
+        SPEED_KMH.put("living_street", 10);
+    }
+
+    private OsmGraphReader() {}
+
+    public static RoadGraph read(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".pbf")) {
+            throw new IOException("Only OSM XML extracts (.osm, .osm.gz) are supported, convert " + name + " with osmium first");
+        }
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             InputStream in = name.endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw) {
+            return read(in);
+        } catch (XMLStreamException ex) {
+            throw new IOException("Could not parse " + file, ex);
+        }
+    }
+
+    static RoadGraph read(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader xml = factory.createXMLStreamReader(in);
+
+        IdMap ids = new IdMap();
+        double[] lat = new double[1 << 16], lon = new double[1 << 16];
+        int nodes = 0;
+        IntList from = new IntList(1 << 16), to = new IntList(1 << 16), weight = new IntList(1 << 16);
+        IntList refs = new IntList();
+        Map<String, String> tags = new HashMap<>();
+        boolean inWay = false;
+
+        while (xml.hasNext()) {
+            int ev = xml.next();
+            if (ev == XMLStreamConstants.START_ELEMENT) {
+                String el = xml.getLocalName();
+                if ("node".equals(el)) {
+                    if (nodes == lat.length) {
+                        lat = Arrays.copyOf(lat, nodes * 2);
+                        lon = Arrays.copyOf(lon, nodes * 2);
+                    }
+                    ids.put(Long.parseLong(xml.getAttributeValue(null, "id")), nodes);
+                    lat[nodes] = Double.parseDouble(xml.getAttributeValue(null, "lat"));
+                    lon[nodes] = Double.parseDouble(xml.getAttributeValue(null, "lon"));
+                    nodes++;
+                } else if ("way".equals(el)) {
+                    inWay = true;
+                    refs.clear();
+                    tags.clear();
+                } else if (inWay && "nd".equals(el)) {
+                    refs.add(ids.get(Long.parseLong(xml.getAttributeValue(null, "ref"))));
+                } else if (inWay && "tag".equals(el)) {
+                    tags.put(xml.getAttributeValue(null, "k"), xml.getAttributeValue(null, "v"));
+                }
+            } else if (ev == XMLStreamConstants.END_ELEMENT && "way".equals(xml.getLocalName())) {
+                inWay = false;
+                double speed = speedKmh(tags);
+                if (speed <= 0) continue;
+                int dir = direction(tags);
+                for (int i = 1; i < refs.size(); i++) {
+                    int a = refs.get(i - 1), b = refs.get(i);
+                    if (a < 0 || b < 0) continue; // clipped at the extract boundary
+                    int ms = (int) Math.max(1, Math.round(Geo.haversineKm(lat[a], lon[a], lat[b], lon[b]) / speed * 3_600_000));
+                    if (dir >= 0) { from.add(a); to.add(b); weight.add(ms); }
+                    if (dir <= 0) { from.add(b); to.add(a); weight.add(ms); }
+                }
+            }
+        }
+        xml.close();
+        return compact(lat, lon, nodes, from.toArray(), to.toArray(), weight.toArray());
+    }
+
+    // keeps only nodes that some edge touches and renumbers the edges to match
+    private static RoadGraph compact(double[] lat, double[] lon, int nodes, int[] from, int[] to, int[] weight) {
+        int[] remap = new int[nodes];
+        Arrays.fill(remap, -1);
+        int used = 0;
+        for (int e = 0; e < from.length; e++) {
+            if (remap[from[e]] < 0) remap[from[e]] = used++;
+            if (remap[to[e]] < 0) remap[to[e]] = used++;
+        }
+        double[] la = new double[used], lo = new double[used];
+        for (int v = 0; v < nodes; v++) {
+            if (remap[v] >= 0) {
+                la[remap[v]] = lat[v];
+                lo[remap[v]] = lon[v];
+            }
+        }
+        for (int e = 0; e < from.length; e++) {
+            from[e] = remap[from[e]];
+            to[e] = remap[to[e]];
+        }
+        return RoadGraph.fromEdges(la, lo, from, to, weight);
+    }
+
+    /** Free-flow speed for a way, 0 if cars cannot use it. */
+    static double speedKmh(Map<String, String> tags) {
+        Integer base = SPEED_KMH.get(tags.get("highway"));
+        if (base == null || "yes".equals(tags.get("area"))) return 0;
+        String access = tags.getOrDefault("motor_vehicle", tags.get("access"));
+        if ("no".equals(access) || "private".equals(access)) return 0;
+        String max = tags.get("maxspeed");
+        if (max != null) {
+            int digits = 0;
+            while (digits < max.length() && Character.isDigit(max.charAt(digits))) digits++;
+            if (digits > 0) {
+                double v = Double.parseDouble(max.substring(0, digits));
+                return max.contains("mph") ? v * 1.609 : v;
+            }
+        }
+        return base;
+    }
+
+    /** 1 forward only, -1 backward only, 0 both ways. */
+    static int direction(Map<String, String> tags) {
+        String oneway = tags.get("oneway");
+        if ("-1".equals(oneway)) return -1;
+        if ("yes".equals(oneway) || "1".equals(oneway) || "true".equals(oneway)) return 1;
+        if ("no".equals(oneway)) return 0;
+        return "motorway".equals(tags.get("highway")) || "roundabout".equals(tags.get("junction")) ? 1 : 0;
+    }
+
+    /** Open-addressing map from OSM node id to array index; missing ids read as -1. */
+    private static final class IdMap {
+        private long[] keys = new long[1 << 17];
+        private int[] values = new int[1 << 17];
+        private boolean[] used = new boolean[1 << 17];
+        private int size;
+
+        void put(long key, int value) {
+            if (size * 2 >= keys.length) grow();
+            int i = slot(key, keys, used);
+            if (!used[i]) size++;
+            used[i] = true;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int get(long key) {
+            int i = slot(key, keys, used);
+            return used[i] ? values[i] : -1;
+        }
+
+        private static int slot(long key, long[] keys, boolean[] used) {
+            int mask = keys.length - 1;
+            int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (used[i] && keys[i] != key) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (!oldUsed[i]) continue;
+                int j = slot(oldKeys[i], keys, used);
+                used[j] = true;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
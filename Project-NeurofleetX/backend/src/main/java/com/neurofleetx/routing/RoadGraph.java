@@ -0,0 +1,117 @@
+package com.neurofleetx.routing;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.neurofleetx.dispatch.Geo;
+
+/**
+ * Directed road network in compressed sparse row form: the out-edges of node {@code v}
+ * are {@code head[first[v]] .. head[first[v + 1] - 1]}, with travel times in
+ * milliseconds alongside. Coordinates are kept per node for snapping, through a
+ * uniform grid over node positions.
+ */
+public final class RoadGraph {
+    private static final double CELL_DEGREES = 0.005;
+
+    final double[] lat, lon;
+    final int[] first, head, weightMs;
+    private final Map<Long, int[]> cells = new HashMap<>();
+
+    private RoadGraph(double[] lat, double[] lon, int[] first, int[] head, int[] weightMs) {
+        this.lat = lat;
+        this.lon = lon;
+        this.first = first;
+        this.head = head;
+        this.weightMs = weightMs;
+        index();
+    }
+
+    /** Builds the graph from an edge list; parallel edges are kept, self-loops dropped. */
+    public static RoadGraph fromEdges(double[] lat, double[] lon, int[] from, int[] to, int[] weightMs) {
+        int n = lat.length;
+        int[] first = new int[n + 1];
+        int m = 0;
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] != to[e]) {
+                first[from[e] + 1]++;
+                m++;
+            }
+        }
+        for (int v = 0; v < n; v++) first[v + 1] += first[v];
+        int[] head = new int[m], weight = new int[m];
+        int[] fill = first.clone();
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] == to[e]) continue;
+            int slot = fill[from[e]]++;
+            head[slot] = to[e];
+            weight[slot] = weightMs[e];
+        }
+        return new RoadGraph(lat, lon, first, head, weight);
+    }
+
+    public int nodeCount() { return lat.length; }
+    public int edgeCount() { return head.length; }
+    public double lat(int node) { return lat[node]; }
+    public double lon(int node) { return lon[node]; }
+
+    /** Closest node within {@code maxKm} of the point, or -1. */
+    public int nearestNode(double la, double lo, double maxKm) {
+        int ci = index(la), cj = index(lo);
+        double kmPerCell = CELL_DEGREES * Geo.KM_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89.9, Math.abs(la) + 1)));
+        int maxRing = (int) Math.ceil(maxKm / kmPerCell) + 1;
+        int best = -1;
+        double bestKm = maxKm;
+        for (int r = 0; r <= maxRing; r++) {
+            // anything in ring r is at least r-1 whole cells away
+            if (best >= 0 && (r - 1) * kmPerCell > bestKm) break;
+            for (int di = -r; di <= r; di++) {
+                for (int dj = -r; dj <= r; dj++) {
+                    if (Math.abs(di) != r && Math.abs(dj) != r) continue;
+                    int[] nodes = cells.get(key(ci + di, cj + dj));
+                    if (nodes == null) continue;
+                    for (int v : nodes) {
+                        double d = Geo.haversineKm(la, lo, lat[v], lon[v]);
+                        if (d <= bestKm) {
+                            bestKm = d;
+                            best = v;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        GraphIO.write(out, lat);
+        GraphIO.write(out, lon);
+        GraphIO.write(out, first);
+        GraphIO.write(out, head);
+        GraphIO.write(out, weightMs);
+    }
+
+    static RoadGraph read(DataInputStream in) throws IOException {
+        return new RoadGraph(GraphIO.readDoubles(in), GraphIO.readDoubles(in), GraphIO.readInts(in), GraphIO.readInts(in),
+                GraphIO.readInts(in));
+    }
+
+    private void index() {
+        Map<Long, IntList> building = new HashMap<>();
+        for (int v = 0; v < lat.length; v++) {
+            building.computeIfAbsent(key(index(lat[v]), index(lon[v])), k -> new IntList(4)).add(v);
+        }
+        building.forEach((k, nodes) -> cells.put(k, nodes.toArray()));
+    }
+
+    private static int index(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | (j & 0xffffffffL);
+    }
+}
@@ -0,0 +1,227 @@
+package com.neurofleetx.routing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.dispatch.Geo;
+import com.neurofleetx.model.Location;
+
+/**
+ * Drive-time estimates from a local OSM extract. The road graph and its contraction
+ * hierarchy are built on a background thread after startup (or read back from a cache
+ * file written next to the extract), so the app serves requests meanwhile. Until the
+ * engine is ready, and for points that do not snap to the graph or cannot reach each
+ * other on it, estimates fall back to straight-line distance at a configured speed.
+ */
+@Component
+public class RoutingService {
+    private static final Logger log = LoggerFactory.getLogger(RoutingService.class);
+    private static final int CACHE_MAGIC = 0x4e464348, CACHE_VERSION = 1;
+
+    private static final class Engine {
+        final RoadGraph graph;
+        final ContractionHierarchy hierarchy;
+
+        Engine(RoadGraph graph, ContractionHierarchy hierarchy) {
+            this.graph = graph;
+            this.hierarchy = hierarchy;
+        }
+    }
+
+    @Value("${routing.osm-file:}")
+    private String osmFile;
+
+    @Value("${routing.cache-hierarchy:true}")
+    private boolean cacheHierarchy;
+
+    @Value("${routing.witness-settle-limit:500}")
+    private int settleLimit;
+
+    @Value("${routing.max-snap-km:1.0}")
+    private double maxSnapKm;
+
+    // speed for the legs between a point and the node it snapped to
+    @Value("${routing.access-speed-kmh:15}")
+    private double accessSpeedKmh;
+
+    @Value("${routing.fallback-speed-kmh:25}")
+    private double fallbackSpeedKmh;
+
+    @Value("${routing.fallback-detour:1.3}")
+    private double fallbackDetour;
+
+    private volatile Engine engine;
+    private volatile String state = "DISABLED";
+    private volatile long loadMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (osmFile == null || osmFile.isBlank()) {
+            log.info("routing.osm-file is not set; ETAs use straight-line estimates");
+            return;
+        }
+        state = "LOADING";
+        Thread loader = new Thread(() -> load(Paths.get(osmFile)), "routing-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load(Path file) {
+        long started = System.currentTimeMillis();
+        try {
+            Path cache = Paths.get(file + ".ch");
+            Engine e = cacheHierarchy ? readCache(file, cache) : null;
+            if (e == null) {
+                RoadGraph graph = OsmGraphReader.read(file);
+                log.info("Read {} road nodes and {} edges from {}, contracting", graph.nodeCount(), graph.edgeCount(), file);
+                e = new Engine(graph, ContractionHierarchy.build(graph, settleLimit));
+                if (cacheHierarchy) writeCache(file, cache, e);
+            }
+            engine = e;
+            loadMs = System.currentTimeMillis() - started;
+            state = "READY";
+            log.info("Routing ready in {} ms: {} nodes, {} shortcuts", loadMs, e.graph.nodeCount(), e.hierarchy.shortcutCount());
+        } catch (IOException | RuntimeException ex) {
+            state = "FAILED";
+            log.error("Could not load the road graph from {}; ETAs use straight-line estimates", file, ex);
+        }
+    }
+
+    public boolean ready() {
+        return engine != null;
+    }
+
+    public Map<String, Object> status() {
+        Engine e = engine;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("state", state);
+        if (e != null) {
+            m.put("nodes", e.graph.nodeCount());
+            m.put("edges", e.graph.edgeCount());
+            m.put("shortcuts", e.hierarchy.shortcutCount());
+            m.put("loadMs", loadMs);
+        }
+        return m;
+    }
+
+    /** Road travel time in seconds, or NaN when either point is off the graph or no route exists. */
+    public double routedSeconds(double fromLat, double fromLon, double toLat, double toLon) {
+        Engine e = engine;
+        if (e == null) return Double.NaN;
+        int s = e.graph.nearestNode(fromLat, fromLon, maxSnapKm), t = e.graph.nearestNode(toLat, toLon, maxSnapKm);
+        if (s < 0 || t < 0) return Double.NaN;
+        int ms = e.hierarchy.query(s, t);
+        if (ms == ContractionHierarchy.UNREACHABLE) return Double.NaN;
+        return ms / 1000.0 + access(e.graph, s, fromLat, fromLon) + access(e.graph, t, toLat, toLon);
+    }
+
+    /** Travel time in seconds, routed where possible and estimated otherwise. */
+    public double etaSeconds(double fromLat, double fromLon, double toLat, double toLon) {
+        double routed = routedSeconds(fromLat, fromLon, toLat, toLon);
+        return Double.isNaN(routed) ? fallbackSeconds(fromLat, fromLon, toLat, toLon) : routed;
+    }
+
+    /**
+     * Travel times in seconds, {@code [from][to]}, with one hierarchy search per point
+     * rather than per pair. Points with a NaN latitude give NaN entries.
+     */
+    public double[][] etaSeconds(double[] fromLat, double[] fromLon, double[] toLat, double[] toLon) {
+        Engine e = engine;
+        int[] sources = snap(e, fromLat, fromLon), targets = snap(e, toLat, toLon);
+        int[][] ms = e == null ? null : e.hierarchy.matrix(sources, targets);
+        double[][] out = new double[fromLat.length][toLat.length];
+        for (int i = 0; i < fromLat.length; i++) {
+            for (int j = 0; j < toLat.length; j++) {
+                if (Double.isNaN(fromLat[i]) || Double.isNaN(toLat[j])) {
+                    out[i][j] = Double.NaN;
+                } else if (ms == null || ms[i][j] == ContractionHierarchy.UNREACHABLE) {
+                    out[i][j] = fallbackSeconds(fromLat[i], fromLon[i], toLat[j], toLon[j]);
+                } else {
+                    out[i][j] = ms[i][j] / 1000.0 + access(e.graph, sources[i], fromLat[i], fromLon[i])
+                            + access(e.graph, targets[j], toLat[j], toLon[j]);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Predicted trip duration in whole seconds; null unless both locations have coordinates. */
+    public Long durationSeconds(Location from, Location to) {
+        if (from == null || to == null || from.getLatitude() == null || from.getLongitude() == null
+                || to.getLatitude() == null || to.getLongitude() == null) {
+            return null;
+        }
+        return Math.round(etaSeconds(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude()));
+    }
+
+    private int[] snap(Engine e, double[] lat, double[] lon) {
+        int[] nodes = new int[lat.length];
+        for (int i = 0; i < lat.length; i++) {
+            nodes[i] = e == null || Double.isNaN(lat[i]) ? -1 : e.graph.nearestNode(lat[i], lon[i], maxSnapKm);
+        }
+        return nodes;
+    }
+
+    private double access(RoadGraph graph, int node, double lat, double lon) {
+        return Geo.haversineKm(lat, lon, graph.lat(node), graph.lon(node)) / accessSpeedKmh * 3600;
+    }
+
+    /** Straight-line estimate in seconds, used where no road route is available. */
+    public double fallbackSeconds(double fromLat, double fromLon, double toLat, double toLon) {
+        return Geo.haversineKm(fromLat, fromLon, toLat, toLon) * fallbackDetour / fallbackSpeedKmh * 3600;
+    }
+
+    // the cache is only trusted for the exact extract (size and mtime) and settings it was built from
+    private Engine readCache(Path source, Path cache) {
+        if (!Files.isRegularFile(cache)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache), 1 << 16))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION
+                    || in.readLong() != Files.size(source)
+                    || in.readLong() != Files.getLastModifiedTime(source).toMillis()
+                    || in.readInt() != settleLimit) {
+                return null;
+            }
+            return new Engine(RoadGraph.read(in), ContractionHierarchy.read(in));
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable routing cache {}", cache, ex);
+            return null;
+        }
+    }
+
+    private void writeCache(Path source, Path cache, Engine e) {
+        Path tmp = Paths.get(cache + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeLong(Files.size(source));
+            out.writeLong(Files.getLastModifiedTime(source).toMillis());
+            out.writeInt(settleLimit);
+            e.graph.write(out);
+            e.hierarchy.write(out);
+        } catch (IOException ex) {
+            log.warn("Could not write routing cache {}", cache, ex);
+            return;
+        }
+        try {
+            Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Could not write routing cache {}", cache, ex);
+        }
+    }
+}
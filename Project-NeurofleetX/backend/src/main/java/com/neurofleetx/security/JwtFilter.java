@@ -1,27 +1,116 @@
-
 package com.neurofleetx.security;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+/**
+ * Authenticates bearer tokens. A token is parsed and its signature checked once; after
+ * that it is looked up by its SHA-256 in a bounded cache that drops each entry when
+ * the token itself expires. Only tokens that verified are cached.
+ */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
+    // immutable parts only; each request gets its own token, which is mutable and request-scoped
+    private static final class Verified {
+        final String username;
+        final List<GrantedAuthority> authorities;
+        final long expiresAtMs;
+
+        Verified(String username, List<GrantedAuthority> authorities, long expiresAtMs) {
+            this.username = username;
+            this.authorities = authorities;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    // digest bytes compared by content, so the cache never retains the bearer token itself
+    private static final class TokenKey {
+        final byte[] digest;
+        final int hash;
+
+        TokenKey(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TokenKey && Arrays.equals(digest, ((TokenKey) o).digest);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    });
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    private final Map<String, List<GrantedAuthority>> authoritiesByRole = new ConcurrentHashMap<>();
+    private final Cache<TokenKey, Verified> verified;
+
+    public JwtFilter(@Value("${jwt.cache.max-size:10000}") long maxSize) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<TokenKey, Verified>() {
+                    @Override
+                    public long expireAfterCreate(TokenKey key, Verified v, long currentTime) {
+                        return Duration.ofMillis(Math.max(0, v.expiresAtMs - System.currentTimeMillis())).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(TokenKey key, Verified v, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(TokenKey key, Verified v, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Mono-returning endpoints finish on an async dispatch, which must see the caller too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -29,24 +118,40 @@ public class JwtFilter extends OncePerRequestFilter {
         String header = request.getHeader("Authorization");
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            try {
-                Claims claims = jwtUtil.validateToken(token).getBody();
-                String username = claims.getSubject();
-                String role = claims.get("role", String.class);
-
-                if (username != null) {
-                    UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                            username,
-                            null,
-                            List.of(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                }
-            } catch (Exception ex) {
-                // invalid token - ignore and let security handle it
+            TokenKey key = new TokenKey(SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            Verified v = verified.getIfPresent(key);
+            // eviction is lazy, so re-check expiry on the way out
+            if (v != null && v.expiresAtMs <= System.currentTimeMillis()) {
+                verified.invalidate(key);
+                v = null;
+            }
+            if (v == null) v = verify(key, token);
+            if (v != null) {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(v.username, null, v.authorities));
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private Verified verify(TokenKey key, String token) {
+        try {
+            Claims claims = jwtUtil.validateToken(token).getBody();
+            String username = claims.getSubject();
+            String role = claims.get("role", String.class);
+            if (username == null) return null;
+
+            List<GrantedAuthority> authorities = authoritiesByRole.computeIfAbsent(String.valueOf(role),
+                    r -> List.of(new SimpleGrantedAuthority("ROLE_" + r)));
+            Date exp = claims.getExpiration();
+            if (exp == null) return new Verified(username, authorities, Long.MAX_VALUE);
+            Verified v = new Verified(username, authorities, exp.getTime());
+            verified.put(key, v);
+            return v;
+        } catch (Exception ex) {
+            // invalid token - ignore and let security handle it
+            return null;
+        }
+    }
 }
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -15,11 +16,14 @@ import io.jsonwebtoken.security.Keys;
 public class JwtUtil {
     private final Key key;
     private final long expirationMs;
+    // immutable and thread-safe once built, so one instance serves every request
+    private final JwtParser parser;
 
     public JwtUtil(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration-ms}") long expirationMs) {
         // Use secret bytes (in prod use env var)
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generateToken(String subject, String role) {
@@ -36,6 +40,6 @@ public class JwtUtil {
     }
 
     public Jws<Claims> validateToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 }
@@ -0,0 +1,47 @@
+package com.neurofleetx.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fixed-window limit on auth attempts per email, checked before any hashing. The window
+ * starts at an email's first attempt and the entry expires with it, so the cache only
+ * holds emails seen recently.
+ */
+@Component
+public class LoginThrottle {
+    private final Cache<String, AtomicInteger> attempts;
+    private final int maxAttempts;
+    private final Counter throttled;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${auth.throttle.max-attempts:10}") int maxAttempts,
+                         @Value("${auth.throttle.window-seconds:60}") long windowSeconds,
+                         @Value("${auth.throttle.max-entries:100000}") long maxEntries) {
+        this.maxAttempts = maxAttempts;
+        this.attempts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .maximumSize(maxEntries)
+                .build();
+        this.throttled = meterRegistry.counter("auth.throttled");
+    }
+
+    /** Counts an attempt for {@code email}; false once the window's allowance is used up. */
+    public boolean tryAcquire(String email) {
+        if (email == null) return true;
+        AtomicInteger n = attempts.get(email.toLowerCase(Locale.ROOT), k -> new AtomicInteger());
+        if (n.incrementAndGet() <= maxAttempts) return true;
+        throttled.increment();
+        return false;
+    }
+}
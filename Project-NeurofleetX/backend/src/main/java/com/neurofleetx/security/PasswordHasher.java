@@ -0,0 +1,71 @@
+package com.neurofleetx.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of request threads. The pool is sized
+ * below the core count and its queue is bounded, so a login burst can use at most
+ * that much CPU; work beyond the queue is refused immediately with
+ * {@link RejectedExecutionException} rather than left to wait.
+ */
+@Component
+public class PasswordHasher {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${auth.hash.threads:0}") int threads,
+                          @Value("${auth.hash.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "bcrypt-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.rejected = meterRegistry.counter("auth.hash.rejected");
+        meterRegistry.gaugeCollectionSize("auth.hash.queue", Tags.empty(), executor.getQueue());
+    }
+
+    /** @throws RejectedExecutionException when the hashing queue is full */
+    public CompletableFuture<Boolean> matches(String raw, String encoded) {
+        return submit(() -> passwordEncoder.matches(raw, encoded));
+    }
+
+    /** @throws RejectedExecutionException when the hashing queue is full */
+    public CompletableFuture<String> encode(String raw) {
+        return submit(() -> passwordEncoder.encode(raw));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw ex;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
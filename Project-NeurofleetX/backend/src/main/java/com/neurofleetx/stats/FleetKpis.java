@@ -0,0 +1,177 @@
+package com.neurofleetx.stats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripStateMachine;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fleet KPIs kept up to date on every trip transition instead of being recomputed per
+ * request: pickup wait and trip duration (last hour and all time) and fares per hour for
+ * the last day. All counters are LongAdders or {@link SlidingWindow}s, so updates never
+ * lock and reads are O(1) in the number of trips. State is snapshotted to Mongo
+ * periodically and on shutdown, and restored on startup. Trips per status are counted
+ * in memory from the net changes the event log writes to its status-count projection;
+ * the log seeds them from that projection once at startup, so requests never query Mongo.
+ */
+@Component
+public class FleetKpis {
+    private static final Logger log = LoggerFactory.getLogger(FleetKpis.class);
+    static final String COLLECTION = "fleet_kpis";
+    static final String SNAPSHOT_ID = "current";
+    private static final long MINUTE_MS = 60_000, HOUR_MS = 3_600_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetEventBus eventBus;
+
+    private final SlidingWindow waitMs = new SlidingWindow(MINUTE_MS, 60);
+    private final SlidingWindow durationMs = new SlidingWindow(MINUTE_MS, 60);
+    private final SlidingWindow fareCents = new SlidingWindow(HOUR_MS, 24);
+    private final LongAdder waitTotalMs = new LongAdder(), waitSamples = new LongAdder();
+    private final LongAdder durationTotalMs = new LongAdder(), durationSamples = new LongAdder();
+    private final Map<String, LongAdder> tripsByStatus = new ConcurrentHashMap<>();
+
+    /** {@code trip} as it is after the change; {@code from} is null for new trips. */
+    public void onTransition(Trip trip, String from, String to) {
+        long now = System.currentTimeMillis();
+        if (TripStateMachine.IN_PROGRESS.equals(to)) {
+            long wait = millisBetween(trip.getRequestedTime(), trip.getStartTime());
+            if (wait >= 0) {
+                waitMs.add(now, wait);
+                waitTotalMs.add(wait);
+                waitSamples.increment();
+            }
+        } else if (TripStateMachine.COMPLETED.equals(to)) {
+            long duration = millisBetween(trip.getStartTime(), trip.getEndTime());
+            if (duration >= 0) {
+                durationMs.add(now, duration);
+                durationTotalMs.add(duration);
+                durationSamples.increment();
+            }
+            if (trip.getFare() != null) fareCents.add(now, Math.round(trip.getFare() * 100));
+        }
+    }
+
+    /** Replaces the trips-per-status counts; called by TripEventLog once its projection is loaded. */
+    public void resetTripsByStatus(Map<String, Long> counts) {
+        tripsByStatus.clear();
+        addTripsByStatus(counts);
+    }
+
+    /** Applies a net change per status, as written to the event log's projection. */
+    public void addTripsByStatus(Map<String, Long> delta) {
+        delta.forEach((status, n) -> tripsByStatus.computeIfAbsent(status, s -> new LongAdder()).add(n));
+    }
+
+    public Map<String, Long> tripsByStatus() {
+        Map<String, Long> out = new TreeMap<>();
+        tripsByStatus.forEach((status, n) -> out.put(status, n.sum()));
+        return out;
+    }
+
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("tripsByStatus", tripsByStatus());
+        out.put("waitSeconds", timing(waitMs.total(now), waitTotalMs.sum(), waitSamples.sum()));
+        out.put("durationSeconds", timing(durationMs.total(now), durationTotalMs.sum(), durationSamples.sum()));
+
+        List<Map<String, Object>> fares = new ArrayList<>();
+        for (long[] b : fareCents.series(now)) {
+            Map<String, Object> hour = new LinkedHashMap<>();
+            hour.put("hour", Instant.ofEpochMilli(b[0]));
+            hour.put("trips", b[2]);
+            hour.put("fares", b[1] / 100.0);
+            fares.add(hour);
+        }
+        out.put("faresPerHour", fares);
+
+        long available = eventBus.count("DRIVER", "AVAILABLE"), busy = eventBus.count("DRIVER", "BUSY");
+        Map<String, Object> drivers = new LinkedHashMap<>();
+        drivers.put("available", available);
+        drivers.put("busy", busy);
+        drivers.put("utilization", available + busy == 0 ? 0.0 : (double) busy / (available + busy));
+        out.put("drivers", drivers);
+        out.put("asOf", Instant.ofEpochMilli(now));
+        return out;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.snapshot-ms:60000}", initialDelayString = "${stats.snapshot-ms:60000}")
+    public void persist() {
+        Document doc = new Document("_id", SNAPSHOT_ID)
+                .append("waitTotalMs", waitTotalMs.sum()).append("waitSamples", waitSamples.sum())
+                .append("durationTotalMs", durationTotalMs.sum()).append("durationSamples", durationSamples.sum())
+                .append("waitMs", waitMs.toDocument())
+                .append("durationMs", durationMs.toDocument())
+                .append("fareCents", fareCents.toDocument())
+                .append("at", new Date());
+        mongoTemplate.save(doc, COLLECTION);
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            persist();
+        } catch (RuntimeException ex) {
+            log.warn("Could not snapshot fleet KPIs on shutdown", ex);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        Document doc = mongoTemplate.findById(SNAPSHOT_ID, Document.class, COLLECTION);
+        if (doc == null) return;
+        waitTotalMs.add(longOf(doc, "waitTotalMs"));
+        waitSamples.add(longOf(doc, "waitSamples"));
+        durationTotalMs.add(longOf(doc, "durationTotalMs"));
+        durationSamples.add(longOf(doc, "durationSamples"));
+        waitMs.restore(doc.get("waitMs", Document.class));
+        durationMs.restore(doc.get("durationMs", Document.class));
+        fareCents.restore(doc.get("fareCents", Document.class));
+    }
+
+    private static Map<String, Object> timing(long[] window, long totalMs, long samples) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("avgLastHour", window[1] == 0 ? null : window[0] / 1000.0 / window[1]);
+        m.put("samplesLastHour", window[1]);
+        m.put("avgAllTime", samples == 0 ? null : totalMs / 1000.0 / samples);
+        m.put("samples", samples);
+        return m;
+    }
+
+    private static long millisBetween(Instant a, Instant b) {
+        return a == null || b == null ? -1 : Duration.between(a, b).toMillis();
+    }
+
+    private static long longOf(Document doc, String key) {
+        Object v = doc.get(key);
+        return v instanceof Number ? ((Number) v).longValue() : 0;
+    }
+}
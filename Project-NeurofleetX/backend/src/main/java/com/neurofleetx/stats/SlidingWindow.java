@@ -0,0 +1,97 @@
+package com.neurofleetx.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+
+/**
+ * Ring of fixed-width time buckets, each a pair of LongAdders (sum, count) tagged with
+ * the bucket's epoch. Writers never lock: the first writer into a bucket from a newer
+ * period claims it with a CAS on the epoch and clears it. A write racing that reset can
+ * land in either period, which is fine for live stats. Reads touch every bucket once,
+ * so their cost depends only on the window size.
+ */
+final class SlidingWindow {
+    private final long bucketMs;
+    private final int buckets;
+    private final AtomicLongArray epochs;
+    private final LongAdder[] sums, counts;
+
+    SlidingWindow(long bucketMs, int buckets) {
+        this.bucketMs = bucketMs;
+        this.buckets = buckets;
+        this.epochs = new AtomicLongArray(buckets);
+        this.sums = new LongAdder[buckets];
+        this.counts = new LongAdder[buckets];
+        for (int i = 0; i < buckets; i++) {
+            epochs.set(i, -1);
+            sums[i] = new LongAdder();
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void add(long atMs, long value) {
+        long epoch = atMs / bucketMs;
+        int i = (int) (epoch % buckets);
+        long seen = epochs.get(i);
+        if (seen != epoch) {
+            if (epoch < seen) return; // older than the window
+            if (epochs.compareAndSet(i, seen, epoch)) {
+                sums[i].reset();
+                counts[i].reset();
+            }
+        }
+        sums[i].add(value);
+        counts[i].increment();
+    }
+
+    /** {sum, count} over the window ending at {@code nowMs}. */
+    long[] total(long nowMs) {
+        long now = nowMs / bucketMs, sum = 0, count = 0;
+        for (int i = 0; i < buckets; i++) {
+            long epoch = epochs.get(i);
+            if (epoch > now - buckets && epoch <= now) {
+                sum += sums[i].sum();
+                count += counts[i].sum();
+            }
+        }
+        return new long[] { sum, count };
+    }
+
+    /** {bucketStartMs, sum, count} per bucket, oldest first, including empty ones. */
+    List<long[]> series(long nowMs) {
+        long now = nowMs / bucketMs;
+        List<long[]> out = new ArrayList<>(buckets);
+        for (long epoch = now - buckets + 1; epoch <= now; epoch++) {
+            int i = (int) (epoch % buckets);
+            boolean live = epochs.get(i) == epoch;
+            out.add(new long[] { epoch * bucketMs, live ? sums[i].sum() : 0, live ? counts[i].sum() : 0 });
+        }
+        return out;
+    }
+
+    Document toDocument() {
+        List<Long> e = new ArrayList<>(buckets), s = new ArrayList<>(buckets), c = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            e.add(epochs.get(i));
+            s.add(sums[i].sum());
+            c.add(counts[i].sum());
+        }
+        return new Document("bucketMs", bucketMs).append("epochs", e).append("sums", s).append("counts", c);
+    }
+
+    void restore(Document d) {
+        if (d == null || ((Number) d.get("bucketMs")).longValue() != bucketMs) return;
+        List<?> e = d.getList("epochs", Object.class), s = d.getList("sums", Object.class), c = d.getList("counts", Object.class);
+        for (int i = 0; i < Math.min(buckets, e.size()); i++) {
+            epochs.set(i, ((Number) e.get(i)).longValue());
+            sums[i].reset();
+            sums[i].add(((Number) s.get(i)).longValue());
+            counts[i].reset();
+            counts[i].add(((Number) c.get(i)).longValue());
+        }
+    }
+}
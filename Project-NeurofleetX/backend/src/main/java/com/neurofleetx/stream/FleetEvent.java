@@ -0,0 +1,41 @@
+package com.neurofleetx.stream;
+
+import java.time.Instant;
+
+/** Latest known state of one driver, vehicle or trip as pushed to stream subscribers. */
+public class FleetEvent {
+    private final String type; // DRIVER, VEHICLE, TRIP
+    private final String id;
+    private final String status; // DELETED once removed
+    private final Double latitude;
+    private final Double longitude;
+    private final Instant timestamp;
+
+    public FleetEvent(String type, String id, String status, Double latitude, Double longitude, Instant timestamp) {
+        this.type = type;
+        this.id = id;
+        this.status = status;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+    }
+
+    /** This event with any missing field filled in from the previous state. */
+    FleetEvent over(FleetEvent prev) {
+        if (prev == null) return this;
+        return new FleetEvent(type, id,
+                status != null ? status : prev.status,
+                latitude != null ? latitude : prev.latitude,
+                longitude != null ? longitude : prev.longitude,
+                timestamp);
+    }
+
+    String key() { return type + ":" + id; }
+
+    public String getType() { return type; }
+    public String getId() { return id; }
+    public String getStatus() { return status; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public Instant getTimestamp() { return timestamp; }
+}
@@ -0,0 +1,223 @@
+package com.neurofleetx.stream;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.neurofleetx.model.Location;
+import com.neurofleetx.repository.DriverRepository;
+import com.neurofleetx.repository.VehicleRepository;
+import com.neurofleetx.trip.TripStateMachine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single in-process fan-out point for fleet changes. Publishers report deltas; the
+ * bus merges them into the latest state per entity and, once per flush window, sends
+ * each subscriber one batch holding only the entities that changed and that match
+ * its filter either before or after the change (so clients also learn when something
+ * leaves their box or status set). A trip that reaches a terminal status is sent as a
+ * last delta and then forgotten, so the state (and every snapshot) only holds live trips.
+ * The scheduler thread only queues each batch per subscriber; the writes happen on a
+ * small dedicated pool, at most one at a time per subscriber. A subscriber whose
+ * queue fills up has fallen behind and is completed, so it reconnects for a fresh
+ * snapshot instead of holding back everyone else.
+ */
+@Component
+public class FleetEventBus {
+    private static final Logger log = LoggerFactory.getLogger(FleetEventBus.class);
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    private final MeterRegistry meterRegistry;
+    private final int outboxCapacity;
+    private final ThreadPoolExecutor senders;
+    private final Counter behind;
+
+    private final Map<String, FleetEvent> state = new ConcurrentHashMap<>();
+    private final Map<FleetSubscription, Outbox> subscribers = new ConcurrentHashMap<>();
+    // key -> {state before the window, state now}; guarded by this
+    private Map<String, FleetEvent[]> pending = new HashMap<>();
+    // drivers/vehicles per status, kept in step with state and exported as gauges; written under this
+    private final Map<String, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+
+    // events queued for one subscriber, and whether a sender is currently draining them
+    private static final class Outbox {
+        final BlockingQueue<SseEmitter.SseEventBuilder> events;
+        final AtomicBoolean sending = new AtomicBoolean();
+
+        Outbox(int capacity) { this.events = new ArrayBlockingQueue<>(capacity); }
+    }
+
+    public FleetEventBus(MeterRegistry meterRegistry,
+                         @Value("${stream.send-threads:2}") int threads,
+                         @Value("${stream.subscriber-queue:64}") int outboxCapacity) {
+        this.meterRegistry = meterRegistry;
+        this.outboxCapacity = outboxCapacity;
+        AtomicInteger n = new AtomicInteger();
+        // at most one task per subscriber is ever queued, so the queue is bounded by the subscriber count
+        this.senders = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "fleet-stream-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.behind = meterRegistry.counter("fleet.stream.dropped", "reason", "behind");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        driverRepository.findAll().forEach(d -> publish("DRIVER", d.getId(), d.getStatus(), d.getCurrentLocation()));
+        vehicleRepository.findAll().forEach(v -> publish("VEHICLE", v.getId(), v.getStatus(), v.getCurrentLocation()));
+        synchronized (this) { pending = new HashMap<>(); }
+    }
+
+    public void publish(String type, String id, String status, Location l) {
+        publish(type, id, status, l == null ? null : l.getLatitude(), l == null ? null : l.getLongitude());
+    }
+
+    /** Null fields mean "unchanged". */
+    public void publish(String type, String id, String status, Double latitude, Double longitude) {
+        FleetEvent e = new FleetEvent(type, id, status, latitude, longitude, Instant.now());
+        synchronized (this) {
+            FleetEvent prev = state.get(e.key());
+            FleetEvent next = e.over(prev);
+            boolean gone = "DELETED".equals(status) || ("TRIP".equals(e.getType()) && TripStateMachine.isTerminal(status));
+            if (gone) state.remove(e.key());
+            else state.put(e.key(), next);
+            if (!"TRIP".equals(e.getType())) recount(prev, "DELETED".equals(status) ? null : next);
+            else if (status != null) meterRegistry.counter("fleet.trip.transitions", "status", status).increment();
+            FleetEvent[] pair = pending.get(e.key());
+            pending.put(e.key(), new FleetEvent[] { pair == null ? prev : pair[0], next });
+        }
+    }
+
+    public void subscribe(FleetSubscription s, boolean snapshot) throws IOException {
+        SseEmitter emitter = s.emitter();
+        emitter.onCompletion(() -> subscribers.remove(s));
+        emitter.onTimeout(() -> subscribers.remove(s));
+        emitter.onError(ex -> subscribers.remove(s));
+        // registered first: a delta racing the snapshot is never newer than the snapshot itself
+        subscribers.put(s, new Outbox(outboxCapacity));
+        if (snapshot) {
+            List<FleetEvent> initial = new ArrayList<>();
+            for (FleetEvent e : state.values()) if (s.matches(e)) initial.add(e);
+            emitter.send(SseEmitter.event().name("snapshot").data(initial));
+        }
+    }
+
+    public int subscriberCount() { return subscribers.size(); }
+
+    /** Current number of DRIVER or VEHICLE entities in {@code status}. */
+    public long count(String type, String status) {
+        AtomicLong n = statusCounts.get(type + ":" + status);
+        return n == null ? 0 : n.get();
+    }
+
+    @Scheduled(fixedDelayString = "${stream.flush-ms:250}")
+    public void flush() {
+        Map<String, FleetEvent[]> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        for (FleetSubscription s : subscribers.keySet()) {
+            List<FleetEvent> out = new ArrayList<>();
+            for (FleetEvent[] pair : batch.values()) {
+                if (s.matches(pair[1]) || (pair[0] != null && s.matches(pair[0]))) out.add(pair[1]);
+            }
+            if (!out.isEmpty()) enqueue(s, SseEmitter.event().name("delta").data(out));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (FleetSubscription s : subscribers.keySet()) enqueue(s, SseEmitter.event().comment("ping"));
+    }
+
+    @PreDestroy
+    public void close() {
+        senders.shutdownNow();
+    }
+
+    private void recount(FleetEvent prev, FleetEvent next) {
+        String before = prev == null ? null : prev.getStatus(), after = next == null ? null : next.getStatus();
+        if (before == null ? after == null : before.equals(after)) return;
+        if (before != null) statusCount(prev.getType(), before).decrementAndGet();
+        if (after != null) statusCount(next.getType(), after).incrementAndGet();
+    }
+
+    private AtomicLong statusCount(String type, String status) {
+        return statusCounts.computeIfAbsent(type + ":" + status, k -> {
+            AtomicLong count = new AtomicLong();
+            Gauge.builder("fleet.entities", count, AtomicLong::get)
+                    .tag("type", type).tag("status", status)
+                    .description("Drivers or vehicles currently in each status")
+                    .register(meterRegistry);
+            return count;
+        });
+    }
+
+    private void enqueue(FleetSubscription s, SseEmitter.SseEventBuilder event) {
+        Outbox box = subscribers.get(s);
+        if (box == null) return;
+        if (!box.events.offer(event)) {
+            subscribers.remove(s);
+            behind.increment();
+            log.debug("Fleet stream subscriber fell {} events behind, closing it", outboxCapacity);
+            s.emitter().complete();
+            return;
+        }
+        if (box.sending.compareAndSet(false, true)) senders.execute(() -> drain(s, box));
+    }
+
+    private void drain(FleetSubscription s, Outbox box) {
+        try {
+            for (SseEmitter.SseEventBuilder event; (event = box.events.poll()) != null; ) {
+                try {
+                    s.emitter().send(event);
+                } catch (IOException | IllegalStateException ex) {
+                    subscribers.remove(s);
+                    box.events.clear();
+                    s.emitter().completeWithError(ex);
+                    return;
+                }
+            }
+        } finally {
+            box.sending.set(false);
+        }
+        // an event queued after the last poll but before the flag cleared would otherwise wait for the next one
+        if (!box.events.isEmpty() && subscribers.containsKey(s) && box.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(s, box));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.neurofleetx.stream;
+
+import java.util.Set;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** One open stream and the filter it asked for; null filter parts match everything. */
+public class FleetSubscription {
+    private final SseEmitter emitter;
+    private final Set<String> types;
+    private final Set<String> statuses;
+    private final double[] bbox; // minLat, minLon, maxLat, maxLon
+
+    public FleetSubscription(SseEmitter emitter, Set<String> types, Set<String> statuses, double[] bbox) {
+        this.emitter = emitter;
+        this.types = types;
+        this.statuses = statuses;
+        this.bbox = bbox;
+    }
+
+    SseEmitter emitter() { return emitter; }
+
+    boolean matches(FleetEvent e) {
+        if (types != null && !types.contains(e.getType())) return false;
+        // deletions always go out so clients can drop the marker
+        if (statuses != null && !"DELETED".equals(e.getStatus()) && !statuses.contains(e.getStatus())) return false;
+        if (bbox != null && e.getLatitude() != null && e.getLongitude() != null) {
+            return e.getLatitude() >= bbox[0] && e.getLongitude() >= bbox[1]
+                    && e.getLatitude() <= bbox[2] && e.getLongitude() <= bbox[3];
+        }
+        return true;
+    }
+}
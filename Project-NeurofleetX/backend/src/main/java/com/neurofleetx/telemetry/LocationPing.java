@@ -0,0 +1,38 @@
+package com.neurofleetx.telemetry;
+
+import java.time.Instant;
+
+public class LocationPing {
+    private String type; // DRIVER, VEHICLE
+    private String id;
+    private Double latitude;
+    private Double longitude;
+    private Instant timestamp;
+
+    public LocationPing() {}
+
+    public LocationPing(String type, String id, Double latitude, Double longitude, Instant timestamp) {
+        this.type = type;
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+    }
+
+    public boolean isValid() {
+        return ("DRIVER".equals(type) || "VEHICLE".equals(type)) && id != null && !id.isEmpty()
+                && latitude != null && latitude >= -90 && latitude <= 90
+                && longitude != null && longitude >= -180 && longitude <= 180;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,169 @@
+package com.neurofleetx.telemetry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.dispatch.SpatialIndex;
+import com.neurofleetx.history.LocationHistoryService;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.stream.FleetEventBus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Buffers GPS pings in a bounded queue and flushes them periodically. Within a flush
+ * only the newest fix per driver/vehicle survives, and it is written as a targeted
+ * $set of the position fields in one unordered bulk per collection, never as a
+ * full-document save. The $set only matches while the stored fix is older, and a fix
+ * older than one already applied is skipped, so a ping that arrives late cannot move
+ * a driver or vehicle backwards.
+ */
+@Component
+public class TelemetryIngestor {
+    private static final Logger log = LoggerFactory.getLogger(TelemetryIngestor.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    private final BlockingQueue<LocationPing> queue;
+    // timestamp of the newest fix applied, by "TYPE:id"
+    private final Map<String, Instant> applied = new ConcurrentHashMap<>();
+    private final Counter accepted, dropped;
+    private final Timer flushTimer;
+    private final long maxFutureSkewMs;
+
+    public TelemetryIngestor(@Value("${telemetry.queue-capacity:100000}") int capacity,
+                             @Value("${telemetry.max-future-skew-ms:30000}") long maxFutureSkewMs,
+                             MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxFutureSkewMs = maxFutureSkewMs;
+        this.accepted = meterRegistry.counter("telemetry.pings", "result", "accepted");
+        this.dropped = meterRegistry.counter("telemetry.pings", "result", "dropped");
+        this.flushTimer = meterRegistry.timer("telemetry.flush");
+        meterRegistry.gaugeCollectionSize("telemetry.backlog", Tags.empty(), queue);
+    }
+
+    /**
+     * False when the queue is full; the caller should back off and resend. A missing
+     * timestamp, or one ahead of the server clock, is taken as now, so a device clock
+     * running fast cannot make its fix outrank every later one.
+     */
+    public boolean offer(LocationPing ping) {
+        Instant now = Instant.now();
+        if (ping.getTimestamp() == null || ping.getTimestamp().isAfter(now)) ping.setTimestamp(now);
+        boolean queued = queue.offer(ping);
+        (queued ? accepted : dropped).increment();
+        return queued;
+    }
+
+    public int backlog() { return queue.size(); }
+
+    /** False for a ping dated before the epoch or more than telemetry.max-future-skew-ms ahead. */
+    public boolean isTimely(LocationPing ping) {
+        Instant ts = ping.getTimestamp();
+        return ts == null || (!ts.isBefore(Instant.EPOCH) && !ts.isAfter(Instant.now().plusMillis(maxFutureSkewMs)));
+    }
+
+    /** True when the ping's driver or vehicle exists; pings for anything else are not queued. */
+    public boolean isKnown(LocationPing ping) {
+        SpatialIndex index = "DRIVER".equals(ping.getType()) ? fleetIndex.drivers() : fleetIndex.vehicles();
+        return index.contains(ping.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.flush-ms:1000}")
+    public void flush() {
+        if (queue.isEmpty()) return;
+        List<LocationPing> drained = new ArrayList<>(queue.size());
+        queue.drainTo(drained);
+        locationHistoryService.record(drained);
+
+        Map<String, LocationPing> drivers = new HashMap<>(), vehicles = new HashMap<>();
+        for (LocationPing p : drained) {
+            Map<String, LocationPing> latest = "DRIVER".equals(p.getType()) ? drivers : vehicles;
+            latest.merge(p.getId(), p, (a, b) -> b.getTimestamp().isBefore(a.getTimestamp()) ? a : b);
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            write(drivers, Driver.class, EntityCacheConfig.DRIVERS, "lastActive", fleetIndex.drivers());
+            write(vehicles, Vehicle.class, EntityCacheConfig.VEHICLES, "lastUpdated", fleetIndex.vehicles());
+            sample.stop(flushTimer);
+        } catch (RuntimeException ex) {
+            log.warn("Dropped {} location fixes after a failed flush", drivers.size() + vehicles.size(), ex);
+        }
+    }
+
+    private void write(Map<String, LocationPing> latest, Class<?> type, String cacheName, String timeField,
+                       SpatialIndex index) {
+        List<LocationPing> fresh = new ArrayList<>(latest.size());
+        for (LocationPing p : latest.values()) {
+            Instant prev = applied.get(p.getType() + ":" + p.getId());
+            if (prev == null || p.getTimestamp().isAfter(prev)) fresh.add(p);
+        }
+        if (fresh.isEmpty()) return;
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, type);
+        for (LocationPing p : fresh) {
+            // $not $gte also matches documents that have no timestamp yet
+            ops.updateOne(Query.query(Criteria.where("id").is(p.getId()).and(timeField).not().gte(p.getTimestamp())),
+                    new Update().set("currentLocation", new Location(p.getLatitude(), p.getLongitude(), null))
+                            .set("position", new GeoJsonPoint(p.getLongitude(), p.getLatitude()))
+                            .set(timeField, p.getTimestamp()));
+        }
+        ops.execute();
+        for (LocationPing p : fresh) {
+            // positions change too often to evict on; keep any cached copy current instead
+            entityCaches.patch(cacheName, p.getId(), Map.of(
+                    "currentLocation", new Location(p.getLatitude(), p.getLongitude(), null),
+                    "position", new GeoJsonPoint(p.getLongitude(), p.getLatitude()),
+                    timeField, p.getTimestamp()));
+            // only ids the index still knows; one deleted since it was queued was a no-op in Mongo too
+            if (!index.contains(p.getId())) {
+                applied.remove(p.getType() + ":" + p.getId());
+                continue;
+            }
+            applied.put(p.getType() + ":" + p.getId(), p.getTimestamp());
+            index.move(p.getId(), p.getLatitude(), p.getLongitude());
+            fleetEventBus.publish(p.getType(), p.getId(), null, p.getLatitude(), p.getLongitude());
+        }
+    }
+}
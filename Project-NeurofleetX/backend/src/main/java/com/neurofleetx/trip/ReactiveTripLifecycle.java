@@ -0,0 +1,114 @@
+package com.neurofleetx.trip;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.dispatch.DispatchEngine;
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.pooling.PoolRoutes;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.stream.FleetEventBus;
+import com.neurofleetx.trip.TripLifecycle.Outcome;
+import com.neurofleetx.trip.TripLifecycle.Result;
+
+import reactor.core.publisher.Mono;
+
+/** Non-blocking counterpart of {@link TripLifecycle}, with the same guarded transitions. */
+@Service
+public class ReactiveTripLifecycle {
+    private static final FindAndModifyOptions RETURN_OLD = FindAndModifyOptions.options().returnNew(false);
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    @Autowired
+    private PoolRoutes poolRoutes;
+
+    public Mono<Result> start(String id) {
+        return move(id, TripStateMachine.IN_PROGRESS);
+    }
+
+    public Mono<Result> complete(String id) {
+        return move(id, TripStateMachine.COMPLETED).flatMap(this::release);
+    }
+
+    public Mono<Result> cancel(String id) {
+        dispatchEngine.withdraw(id);
+        return move(id, TripStateMachine.CANCELLED).flatMap(this::release);
+    }
+
+    private Mono<Result> move(String id, String to) {
+        Instant now = Instant.now();
+        Update update = new Update().set("status", to);
+        if (TripStateMachine.IN_PROGRESS.equals(to)) update.set("startTime", now);
+        if (TripStateMachine.COMPLETED.equals(to)) update.set("endTime", now);
+
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(id).and("status").in(TripStateMachine.sourcesOf(to))),
+                update, RETURN_OLD, Trip.class)
+                .map(trip -> {
+                    String from = trip.getStatus();
+                    trip.setStatus(to);
+                    if (TripStateMachine.IN_PROGRESS.equals(to)) trip.setStartTime(now);
+                    if (TripStateMachine.COMPLETED.equals(to)) trip.setEndTime(now);
+                    entityCaches.evict(EntityCacheConfig.TRIPS, id);
+                    tripEventLog.append(trip, from, to);
+                    fleetEventBus.publish("TRIP", id, to, null, null);
+                    return new Result(Outcome.OK, trip);
+                })
+                .switchIfEmpty(Mono.defer(() -> mongoTemplate.exists(Query.query(Criteria.where("id").is(id)), Trip.class)
+                        .map(exists -> new Result(exists ? Outcome.ILLEGAL_TRANSITION : Outcome.NOT_FOUND, null))));
+    }
+
+    // free driver & vehicle, unless the vehicle still carries other pooled trips; the two writes don't depend on each other
+    private Mono<Result> release(Result r) {
+        if (r.getOutcome() != Outcome.OK) return Mono.just(r);
+        Trip trip = r.getTrip();
+        if (poolRoutes.hasTrips(trip.getVehicleId())) return Mono.just(r);
+        Mono<Driver> driver = trip.getDriverId() == null ? Mono.empty()
+                : free(trip.getDriverId(), "vehicleId", trip.getVehicleId(), Driver.class).doOnNext(d -> {
+                    entityCaches.evict(EntityCacheConfig.DRIVERS, d.getId());
+                    fleetIndex.track(d);
+                    fleetEventBus.publish("DRIVER", d.getId(), "AVAILABLE", null, null);
+                });
+        Mono<Vehicle> vehicle = trip.getVehicleId() == null ? Mono.empty()
+                : free(trip.getVehicleId(), "driverId", trip.getDriverId(), Vehicle.class).doOnNext(v -> {
+                    entityCaches.evict(EntityCacheConfig.VEHICLES, v.getId());
+                    fleetIndex.track(v);
+                    fleetEventBus.publish("VEHICLE", v.getId(), "AVAILABLE", null, null);
+                });
+        return Mono.when(driver, vehicle).thenReturn(r);
+    }
+
+    private <T> Mono<T> free(String id, String linkField, String linkValue, Class<T> type) {
+        return mongoTemplate.findAndModify(TripLifecycle.releasable(id, linkField, linkValue),
+                new Update().set("status", "AVAILABLE"), RETURN_NEW, type);
+    }
+}
@@ -0,0 +1,41 @@
+package com.neurofleetx.trip;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/** One status change of one trip. Only ever inserted, never updated. */
+@CompoundIndex(name = "tripId_at", def = "{'tripId': 1, 'at': 1}")
+@Document(collection = "trip_events")
+public class TripEvent {
+    @Id
+    private String id;
+    private String tripId;
+    private String fromStatus; // null for creation
+    private String toStatus;
+    private String driverId;
+    private String vehicleId;
+    private Instant at;
+
+    public TripEvent() {}
+
+    public TripEvent(String tripId, String fromStatus, String toStatus, String driverId, String vehicleId, Instant at) {
+        this.tripId = tripId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.driverId = driverId;
+        this.vehicleId = vehicleId;
+        this.at = at;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getTripId() { return tripId; }
+    public String getFromStatus() { return fromStatus; }
+    public String getToStatus() { return toStatus; }
+    public String getDriverId() { return driverId; }
+    public String getVehicleId() { return vehicleId; }
+    public Instant getAt() { return at; }
+}
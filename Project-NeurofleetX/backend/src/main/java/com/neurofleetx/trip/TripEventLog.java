@@ -0,0 +1,292 @@
+package com.neurofleetx.trip;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.neurofleetx.demand.DemandForecaster;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.pooling.PoolRoutes;
+import com.neurofleetx.stats.FleetKpis;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only log of trip status changes. Callers append in memory once their
+ * conditional write on the trip has succeeded; a scheduled flush inserts the buffered
+ * events in one bulk write and then applies their net effect to the status-count
+ * projection with a single $inc. The trips collection itself stays the per-trip
+ * current-state projection, and the same net effect is added to the in-memory counts in
+ * {@link FleetKpis}, which are seeded from the projection once at startup and then served
+ * without touching Mongo. Nothing is flushed until the projection is loaded or rebuilt at
+ * startup, and events a rebuild already counted from trips are not added again.
+ * A failed flush keeps its events and backs off; an event the server keeps rejecting is
+ * moved to {@value #DEAD_LETTERS}, and so are the oldest events once more than
+ * trips.events.max-pending are waiting out an outage. Events still buffered when
+ * the process dies are lost; the projection can be recounted from trips with
+ * {@link #rebuildProjection()}.
+ */
+@Component
+public class TripEventLog {
+    private static final Logger log = LoggerFactory.getLogger(TripEventLog.class);
+    static final String PROJECTIONS = "trip_projections";
+    static final String STATUS_COUNTS = "status_counts";
+    static final String DEAD_LETTERS = "trip_events_dead";
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetKpis fleetKpis;
+
+    @Autowired
+    private PoolRoutes poolRoutes;
+
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Value("${trips.events.max-batch:5000}")
+    private int maxBatch;
+
+    @Value("${trips.events.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    @Value("${trips.events.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${trips.events.max-pending:100000}")
+    private int maxPending;
+
+    private final ConcurrentLinkedQueue<TripEvent> pending = new ConcurrentLinkedQueue<>();
+    // guarded by this
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private int failures;
+    private long retryAt;
+    private boolean initialized;
+    // ids of buffered events whose trips a startup rebuild already counted
+    private final Set<String> preCounted = new HashSet<>();
+
+    /** {@code trip} as it is after the change. */
+    public void append(Trip trip, String from, String to) {
+        TripEvent e = new TripEvent(trip.getId(), from, to, trip.getDriverId(), trip.getVehicleId(), Instant.now());
+        // ids are set here so a retried insert of the same event is a harmless duplicate
+        e.setId(new ObjectId().toHexString());
+        pending.add(e);
+        fleetKpis.onTransition(trip, from, to);
+        poolRoutes.onTransition(trip, from, to);
+        demandForecaster.onTransition(trip, from, to);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void initProjection() {
+        if (initialized) return;
+        if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(STATUS_COUNTS)), PROJECTIONS)) {
+            // appended before the recount started, so their trips are already in it
+            pending.forEach(e -> preCounted.add(e.getId()));
+            rebuildProjection();
+        } else {
+            fleetKpis.resetTripsByStatus(readProjection());
+        }
+        initialized = true;
+    }
+
+    /** Recounts trips per status from the trips collection and replaces the projection and the in-memory counts. */
+    public synchronized Map<String, Long> rebuildProjection() {
+        Document counts = new Document();
+        Aggregation agg = Aggregation.newAggregation(Aggregation.group("status").count().as("n"));
+        for (Document d : mongoTemplate.aggregate(agg, Trip.class, Document.class)) {
+            if (d.get("_id") != null) counts.put(d.get("_id").toString(), ((Number) d.get("n")).longValue());
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(STATUS_COUNTS)), new Update().set("counts", counts), PROJECTIONS);
+        Map<String, Long> out = readProjection();
+        fleetKpis.resetTripsByStatus(out);
+        return out;
+    }
+
+    /** Trips per status, from memory. */
+    public Map<String, Long> statusCounts() {
+        return fleetKpis.tripsByStatus();
+    }
+
+    private Map<String, Long> readProjection() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        Document doc = mongoTemplate.findById(STATUS_COUNTS, Document.class, PROJECTIONS);
+        Document counts = doc == null ? null : doc.get("counts", Document.class);
+        if (counts != null) counts.forEach((status, n) -> out.put(status, ((Number) n).longValue()));
+        return out;
+    }
+
+    public List<TripEvent> events(String tripId) {
+        return mongoTemplate.find(Query.query(Criteria.where("tripId").is(tripId)).with(Sort.by("at", "id")), TripEvent.class);
+    }
+
+    /** Folds the log up to {@code at}; null when the trip had no events by then. */
+    public Map<String, Object> stateAt(String tripId, Instant at) {
+        Query q = Query.query(Criteria.where("tripId").is(tripId).and("at").lte(at)).with(Sort.by("at", "id"));
+        Map<String, Object> state = null;
+        for (TripEvent e : mongoTemplate.find(q, TripEvent.class)) {
+            if (state == null) {
+                state = new LinkedHashMap<>();
+                state.put("tripId", tripId);
+            }
+            state.put("status", e.getToStatus());
+            if (e.getDriverId() != null) state.put("driverId", e.getDriverId());
+            if (e.getVehicleId() != null) state.put("vehicleId", e.getVehicleId());
+            state.put("since", e.getAt());
+        }
+        return state;
+    }
+
+    /** Backs off exponentially while writes keep failing, up to trips.events.max-backoff-ms. */
+    @Scheduled(fixedDelayString = "${trips.events.flush-ms:200}")
+    public synchronized void flush() {
+        if (failures > 0) spillOverflow();
+        long now = System.currentTimeMillis();
+        if (now < retryAt) return;
+        boolean ok;
+        try {
+            // normally loaded on ApplicationReady; retried here if the store was down then
+            if (!initialized) initProjection();
+            ok = drain();
+        } catch (RuntimeException ex) {
+            log.warn("Trip event status projection could not be loaded, holding {} events", pending.size(), ex);
+            ok = false;
+        }
+        if (ok) {
+            failures = 0;
+        } else {
+            failures++;
+            retryAt = now + Math.min(maxBackoffMs, 100L << Math.min(failures, 20));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (!drain()) log.warn("Shutting down with {} trip events unwritten", pending.size());
+    }
+
+    // writes what is queued now, once; events put back by a failed write wait for the next tick
+    private boolean drain() {
+        for (int left = pending.size(); left > 0; ) {
+            List<TripEvent> batch = new ArrayList<>();
+            for (TripEvent e; batch.size() < Math.min(maxBatch, left) && (e = pending.poll()) != null; ) batch.add(e);
+            if (batch.isEmpty()) break;
+            left -= batch.size();
+            if (!write(batch)) return false;
+        }
+        return true;
+    }
+
+    /** False when some events were put back to retry. */
+    private boolean write(List<TripEvent> batch) {
+        List<TripEvent> written = batch;
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, TripEvent.class);
+            ops.insert(batch);
+            ops.execute();
+        } catch (BulkOperationException ex) {
+            // keep what landed (or already had), put the rest back for the next flush
+            written = new ArrayList<>(batch);
+            List<TripEvent> retry = new ArrayList<>();
+            for (BulkWriteError err : ex.getErrors()) {
+                if (err.getCode() != DUPLICATE_KEY) retry.add(batch.get(err.getIndex()));
+            }
+            written.removeAll(retry);
+            requeue(retry);
+            log.warn("Re-queued {} of {} trip events after a failed insert", retry.size(), batch.size());
+        } catch (RuntimeException ex) {
+            // nothing was rejected per document, so the store itself is unreachable: keep everything
+            pending.addAll(batch);
+            log.warn("Re-queued {} trip events after a failed insert", batch.size(), ex);
+            return false;
+        }
+        written.forEach(e -> attempts.remove(e.getId()));
+
+        Map<String, Long> delta = new HashMap<>();
+        for (TripEvent e : written) {
+            if (preCounted.remove(e.getId())) continue;
+            if (e.getFromStatus() != null) delta.merge(e.getFromStatus(), -1L, Long::sum);
+            delta.merge(e.getToStatus(), 1L, Long::sum);
+        }
+        delta.values().removeIf(n -> n == 0);
+        fleetKpis.addTripsByStatus(delta);
+        Update inc = new Update();
+        delta.forEach((status, n) -> inc.inc("counts." + status, n));
+        if (!inc.getUpdateObject().isEmpty()) {
+            try {
+                mongoTemplate.upsert(Query.query(Criteria.where("_id").is(STATUS_COUNTS)), inc, PROJECTIONS);
+            } catch (RuntimeException ex) {
+                log.warn("Status counts missed {}; recount with rebuildProjection", delta, ex);
+            }
+        }
+        return written.size() == batch.size();
+    }
+
+    // events the server rejected individually are retried a few times, then parked where they can be inspected
+    private void requeue(List<TripEvent> rejected) {
+        for (TripEvent e : rejected) {
+            int n = attempts.merge(e.getId(), 1, Integer::sum);
+            if (n < maxAttempts) {
+                pending.add(e);
+                continue;
+            }
+            attempts.remove(e.getId());
+            preCounted.remove(e.getId());
+            try {
+                mongoTemplate.insert(e, DEAD_LETTERS);
+                log.error("Moved trip event {} for trip {} to {} after {} failed inserts", e.getId(), e.getTripId(), DEAD_LETTERS, n);
+            } catch (RuntimeException ex) {
+                log.error("Dropped trip event {} for trip {} ({} -> {}) after {} failed inserts",
+                        e.getId(), e.getTripId(), e.getFromStatus(), e.getToStatus(), n, ex);
+            }
+        }
+    }
+
+    // keeps memory bounded while the store is down: the oldest events beyond max-pending are parked or, failing that, dropped
+    private void spillOverflow() {
+        int excess = pending.size() - maxPending;
+        if (excess <= 0) return;
+        List<TripEvent> spill = new ArrayList<>(excess);
+        for (TripEvent e; spill.size() < excess && (e = pending.poll()) != null; ) {
+            attempts.remove(e.getId());
+            preCounted.remove(e.getId());
+            spill.add(e);
+        }
+        try {
+            mongoTemplate.insert(spill, DEAD_LETTERS);
+            log.error("Moved {} trip events to {} after the buffer passed {}; status counts need rebuildProjection",
+                    spill.size(), DEAD_LETTERS, maxPending);
+        } catch (RuntimeException ex) {
+            log.error("Dropped {} trip events after the buffer passed {}; status counts need rebuildProjection",
+                    spill.size(), maxPending, ex);
+        }
+    }
+}
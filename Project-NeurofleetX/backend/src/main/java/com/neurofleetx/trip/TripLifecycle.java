@@ -0,0 +1,144 @@
+package com.neurofleetx.trip;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.neurofleetx.cache.EntityCacheConfig;
+import com.neurofleetx.cache.EntityCaches;
+import com.neurofleetx.dispatch.DispatchEngine;
+import com.neurofleetx.dispatch.FleetIndex;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+import com.neurofleetx.pooling.PoolRoutes;
+import com.neurofleetx.stream.FleetEventBus;
+
+/**
+ * start, complete and cancel as guarded transitions. Each is one findAndModify that
+ * only matches while the trip is in a legal source status, so concurrent or repeated
+ * calls cannot skip or repeat a step; the change is then appended to the event log.
+ */
+@Service
+public class TripLifecycle {
+    public enum Outcome { OK, NOT_FOUND, ILLEGAL_TRANSITION }
+
+    public static final class Result {
+        private final Outcome outcome;
+        private final Trip trip;
+
+        Result(Outcome outcome, Trip trip) {
+            this.outcome = outcome;
+            this.trip = trip;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public Trip getTrip() { return trip; }
+    }
+
+    private static final FindAndModifyOptions RETURN_OLD = FindAndModifyOptions.options().returnNew(false);
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private DispatchEngine dispatchEngine;
+
+    @Autowired
+    private FleetEventBus fleetEventBus;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private TripEventLog tripEventLog;
+
+    @Autowired
+    private PoolRoutes poolRoutes;
+
+    public Result start(String id) {
+        return move(id, TripStateMachine.IN_PROGRESS);
+    }
+
+    public Result complete(String id) {
+        Result r = move(id, TripStateMachine.COMPLETED);
+        if (r.getOutcome() == Outcome.OK) release(r.getTrip());
+        return r;
+    }
+
+    public Result cancel(String id) {
+        dispatchEngine.withdraw(id);
+        Result r = move(id, TripStateMachine.CANCELLED);
+        // an assigned trip was holding its driver and vehicle
+        if (r.getOutcome() == Outcome.OK) release(r.getTrip());
+        return r;
+    }
+
+    private Result move(String id, String to) {
+        Instant now = Instant.now();
+        Update update = new Update().set("status", to);
+        if (TripStateMachine.IN_PROGRESS.equals(to)) update.set("startTime", now);
+        if (TripStateMachine.COMPLETED.equals(to)) update.set("endTime", now);
+
+        Trip trip = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(id).and("status").in(TripStateMachine.sourcesOf(to))),
+                update, RETURN_OLD, Trip.class);
+        if (trip == null) {
+            boolean exists = mongoTemplate.exists(Query.query(Criteria.where("id").is(id)), Trip.class);
+            return new Result(exists ? Outcome.ILLEGAL_TRANSITION : Outcome.NOT_FOUND, null);
+        }
+
+        String from = trip.getStatus();
+        trip.setStatus(to);
+        if (TripStateMachine.IN_PROGRESS.equals(to)) trip.setStartTime(now);
+        if (TripStateMachine.COMPLETED.equals(to)) trip.setEndTime(now);
+        entityCaches.evict(EntityCacheConfig.TRIPS, id);
+        tripEventLog.append(trip, from, to);
+        fleetEventBus.publish("TRIP", id, to, null, null);
+        return new Result(Outcome.OK, trip);
+    }
+
+    // free driver & vehicle, unless the vehicle still carries other pooled trips; only status is
+    // written, so a position flushed by telemetry meanwhile is neither lost nor tracked backwards
+    private void release(Trip trip) {
+        if (poolRoutes.hasTrips(trip.getVehicleId())) return;
+        Driver d = trip.getDriverId() == null ? null : free(trip.getDriverId(), "vehicleId", trip.getVehicleId(), Driver.class);
+        if (d != null) {
+            entityCaches.evict(EntityCacheConfig.DRIVERS, d.getId());
+            fleetIndex.track(d);
+            fleetEventBus.publish("DRIVER", d.getId(), "AVAILABLE", null, null);
+        }
+        Vehicle v = trip.getVehicleId() == null ? null : free(trip.getVehicleId(), "driverId", trip.getDriverId(), Vehicle.class);
+        if (v != null) {
+            entityCaches.evict(EntityCacheConfig.VEHICLES, v.getId());
+            fleetIndex.track(v);
+            fleetEventBus.publish("VEHICLE", v.getId(), "AVAILABLE", null, null);
+        }
+    }
+
+    private <T> T free(String id, String linkField, String linkValue, Class<T> type) {
+        return mongoTemplate.findAndModify(releasable(id, linkField, linkValue),
+                new Update().set("status", "AVAILABLE"), RETURN_NEW, type);
+    }
+
+    /**
+     * Matches a driver or vehicle only while it is still BUSY and still paired the way the
+     * assignment claim left it (driver.vehicleId / vehicle.driverId), so a late complete or
+     * cancel cannot free one that has since been claimed for another trip.
+     */
+    static Query releasable(String id, String linkField, String linkValue) {
+        Criteria c = Criteria.where("id").is(id).and("status").is("BUSY");
+        if (linkValue != null) c.and(linkField).is(linkValue);
+        return Query.query(c);
+    }
+}
@@ -0,0 +1,46 @@
+package com.neurofleetx.trip;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed trip status changes:
+ * REQUESTED -> ASSIGNED -> IN_PROGRESS -> COMPLETED, and REQUESTED/ASSIGNED -> CANCELLED.
+ * Every write that moves a trip is conditional on its current status being a legal source.
+ */
+public final class TripStateMachine {
+    public static final String REQUESTED = "REQUESTED";
+    public static final String ASSIGNED = "ASSIGNED";
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private static final Map<String, Set<String>> NEXT = Map.of(
+            REQUESTED, Set.of(ASSIGNED, CANCELLED),
+            ASSIGNED, Set.of(IN_PROGRESS, CANCELLED),
+            IN_PROGRESS, Set.of(COMPLETED),
+            COMPLETED, Set.of(),
+            CANCELLED, Set.of());
+
+    private TripStateMachine() {}
+
+    public static boolean allowed(String from, String to) {
+        Set<String> next = from == null ? null : NEXT.get(from);
+        return next != null && next.contains(to);
+    }
+
+    /** True for COMPLETED and CANCELLED, which a trip never leaves. */
+    public static boolean isTerminal(String status) {
+        Set<String> next = status == null ? null : NEXT.get(status);
+        return next != null && next.isEmpty();
+    }
+
+    /** Statuses a trip may be in to move to {@code to}. */
+    public static List<String> sourcesOf(String to) {
+        List<String> sources = new ArrayList<>();
+        NEXT.forEach((from, next) -> { if (next.contains(to)) sources.add(from); });
+        return sources;
+    }
+}
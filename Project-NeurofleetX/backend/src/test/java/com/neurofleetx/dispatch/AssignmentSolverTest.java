@@ -0,0 +1,83 @@
+package com.neurofleetx.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class AssignmentSolverTest {
+
+    @Test
+    void matchesBruteForceOnRandomMatrices() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            int rows = 1 + random.nextInt(6), cols = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][cols];
+            for (double[] row : cost)
+                for (int j = 0; j < cols; j++) row[j] = random.nextInt(100);
+
+            int[] solution = AssignmentSolver.solve(cost);
+            assertValid(solution, cols, Math.min(rows, cols));
+            assertEquals(bruteForce(cost), total(cost, solution), 1e-9, "round " + round);
+        }
+    }
+
+    @Test
+    void leavesExtraRowsUnmatchedWhenTallerThanWide() {
+        double[][] cost = { { 5 }, { 1 }, { 3 } };
+        assertArrayEquals(new int[] { -1, 0, -1 }, AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    void emptyInputsMatchNothing() {
+        assertArrayEquals(new int[0], AssignmentSolver.solve(new double[0][0]));
+        assertArrayEquals(new int[] { -1, -1 }, AssignmentSolver.solve(new double[2][0]));
+    }
+
+    private static void assertValid(int[] solution, int cols, int expectedMatches) {
+        Set<Integer> used = new HashSet<>();
+        int matched = 0;
+        for (int col : solution) {
+            if (col < 0) continue;
+            assertTrue(col < cols, "column out of range");
+            assertTrue(used.add(col), "column used twice");
+            matched++;
+        }
+        assertEquals(expectedMatches, matched);
+    }
+
+    private static double total(double[][] cost, int[] solution) {
+        double sum = 0;
+        for (int i = 0; i < solution.length; i++) if (solution[i] >= 0) sum += cost[i][solution[i]];
+        return sum;
+    }
+
+    // cheapest way to give every row of the shorter side a distinct partner
+    private static double bruteForce(double[][] cost) {
+        int rows = cost.length, cols = cost[0].length;
+        if (rows > cols) {
+            double[][] t = new double[cols][rows];
+            for (int i = 0; i < rows; i++)
+                for (int j = 0; j < cols; j++) t[j][i] = cost[i][j];
+            return bruteForce(t);
+        }
+        return best(cost, 0, new boolean[cols]);
+    }
+
+    private static double best(double[][] cost, int row, boolean[] used) {
+        if (row == cost.length) return 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < used.length; j++) {
+            if (used[j]) continue;
+            used[j] = true;
+            best = Math.min(best, cost[row][j] + best(cost, row + 1, used));
+            used[j] = false;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,81 @@
+package com.neurofleetx.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialIndexTest {
+
+    @Test
+    void nearestMatchesLinearScan() {
+        Random random = new Random(7);
+        SpatialIndex index = new SpatialIndex(0.01);
+        double[][] points = new double[3000][];
+        boolean[] available = new boolean[points.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[] { 40 + random.nextDouble(), -74 + random.nextDouble() };
+            available[i] = random.nextInt(3) > 0;
+            index.update("d" + i, points[i][0], points[i][1], available[i]);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            // some queries fall outside the populated area
+            double lat = 39.9 + random.nextDouble() * 1.2, lon = -74.1 + random.nextDouble() * 1.2;
+            int k = 1 + random.nextInt(10);
+            List<Double> expected = new ArrayList<>();
+            for (int i = 0; i < points.length; i++) {
+                if (available[i]) expected.add(Geo.haversineKm(lat, lon, points[i][0], points[i][1]));
+            }
+            expected.sort(Comparator.naturalOrder());
+
+            List<SpatialIndex.Hit> hits = index.nearest(lat, lon, k);
+            assertEquals(k, hits.size());
+            for (int i = 0; i < k; i++) assertEquals(expected.get(i), hits.get(i).getDistanceKm(), 1e-9, "query " + q);
+        }
+    }
+
+    @Test
+    void skipsUnavailableMembersAndTracksMoves() {
+        SpatialIndex index = new SpatialIndex(0.01);
+        index.update("near", 40.0, -74.0, true);
+        index.update("far", 41.0, -74.0, true);
+        index.setAvailable("near", false);
+        assertEquals("far", index.nearest(40.0, -74.0, 1).get(0).getId());
+
+        index.setAvailable("near", true);
+        index.move("far", 40.0001, -74.0);
+        index.move("near", 45.0, -74.0);
+        assertEquals("far", index.nearest(40.0, -74.0, 1).get(0).getId());
+    }
+
+    @Test
+    void unlocatedMembersOnlyFillUpTheResult() {
+        SpatialIndex index = new SpatialIndex(0.01);
+        index.update("nowhere", null, null, true);
+        index.update("located", 1.0, 1.0, true);
+
+        List<SpatialIndex.Hit> hits = index.nearest(0, 0, 2);
+        assertEquals(2, hits.size());
+        assertEquals("located", hits.get(0).getId());
+        assertTrue(hits.get(0).isLocated());
+        assertEquals("nowhere", hits.get(1).getId());
+        assertFalse(hits.get(1).isLocated());
+        assertEquals(1, index.nearest(0, 0, 1).size());
+    }
+
+    @Test
+    void removedMembersAreNotFound() {
+        SpatialIndex index = new SpatialIndex(0.01);
+        index.update("a", 40.0, -74.0, true);
+        index.remove("a");
+        assertFalse(index.contains("a"));
+        assertTrue(index.nearest(40.0, -74.0, 3).isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.neurofleetx.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TrackCodecTest {
+    private static final long BASE = 1_700_000_000_000L;
+
+    @Test
+    void roundTripsToMicroDegrees() {
+        Random random = new Random(3);
+        int n = 500;
+        long[] times = new long[n];
+        double[] lats = new double[n], lons = new double[n];
+        long t = BASE;
+        double lat = 40.7, lon = -74.0;
+        for (int i = 0; i < n; i++) {
+            t += random.nextInt(10_000);
+            lat += (random.nextDouble() - 0.5) * 0.01;
+            lon += (random.nextDouble() - 0.5) * 0.01;
+            times[i] = t;
+            lats[i] = lat;
+            lons[i] = lon;
+        }
+
+        List<TrackPoint> out = new ArrayList<>();
+        int read = TrackCodec.decode(TrackCodec.encode(times, lats, lons, n, BASE), BASE, Long.MIN_VALUE, Long.MAX_VALUE, out);
+        assertEquals(n, read);
+        assertEquals(n, out.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(times[i], out.get(i).getTimestamp().toEpochMilli());
+            assertEquals(lats[i], out.get(i).getLatitude(), 0.5e-6);
+            assertEquals(lons[i], out.get(i).getLongitude(), 0.5e-6);
+        }
+    }
+
+    @Test
+    void handlesExtremeCoordinatesAndBackwardSteps() {
+        long[] times = { BASE + 5, BASE + 3, BASE + 9 };
+        double[] lats = { -90, 90, 0.000001 };
+        double[] lons = { 180, -180, -0.000001 };
+        List<TrackPoint> out = new ArrayList<>();
+        TrackCodec.decode(TrackCodec.encode(times, lats, lons, 3, BASE), BASE, Long.MIN_VALUE, Long.MAX_VALUE, out);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(times[i], out.get(i).getTimestamp().toEpochMilli());
+            assertEquals(lats[i], out.get(i).getLatitude(), 1e-9);
+            assertEquals(lons[i], out.get(i).getLongitude(), 1e-9);
+        }
+    }
+
+    @Test
+    void decodeKeepsOnlyPointsInRange() {
+        long[] times = { BASE + 1000, BASE + 2000, BASE + 3000 };
+        double[] coords = { 1, 2, 3 };
+        List<TrackPoint> out = new ArrayList<>();
+        int read = TrackCodec.decode(TrackCodec.encode(times, coords, coords, 3, BASE), BASE, BASE + 2000, BASE + 3000, out);
+        assertEquals(3, read);
+        assertEquals(2, out.size());
+        assertEquals(2.0, out.get(0).getLatitude(), 1e-9);
+    }
+
+    @Test
+    void compactForRegularPings() {
+        int n = 720;
+        long[] times = new long[n];
+        double[] lats = new double[n], lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = BASE + i * 5000L;
+            lats[i] = 40.7 + i * 0.0001;
+            lons[i] = -74.0 + i * 0.0001;
+        }
+        assertTrue(TrackCodec.encode(times, lats, lons, n, BASE).length <= n * 8);
+    }
+
+    @Test
+    void emptyRunDecodesToNothing() {
+        List<TrackPoint> out = new ArrayList<>();
+        assertEquals(0, TrackCodec.decode(TrackCodec.encode(new long[0], new double[0], new double[0], 0, BASE), BASE, 0, Long.MAX_VALUE, out));
+        assertTrue(out.isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+package com.neurofleetx.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void splitsPlainFields() throws IOException {
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("1", "", "3")), readAll("a,b,c\n1,,3\n"));
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        String csv = "plate,notes\n\"AB,12\",\"said \"\"hi\"\"\nthen left\"\n";
+        assertEquals(List.of(List.of("plate", "notes"), List.of("AB,12", "said \"hi\"\nthen left")), readAll(csv));
+    }
+
+    @Test
+    void acceptsCrlfAndAMissingFinalNewline() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), readAll("a,b\r\nc,d"));
+    }
+
+    @Test
+    void blankLinesAndEmptyQuotedFields() throws IOException {
+        assertEquals(List.of(List.of("a"), List.of(""), List.of("", "x")), readAll("a\n\n\"\",x\n"));
+    }
+
+    @Test
+    void quoteInsideAnUnquotedFieldIsLiteral() throws IOException {
+        assertEquals(List.of(List.of("5\" wheel", "b")), readAll("5\" wheel,b\n"));
+    }
+
+    @Test
+    void unterminatedQuoteFails() {
+        assertThrows(IOException.class, () -> readAll("a,\"open\n"));
+    }
+
+    @Test
+    void sameResultWhenInputArrivesOneCharAtATime() throws IOException {
+        String csv = "\"x\"\"\",\"y\r\nz\"\r\n1,2\r\n";
+        assertEquals(readAll(csv), readAll(new OneCharReader(csv)));
+        assertEquals(List.of(List.of("x\"", "y\r\nz"), List.of("1", "2")), readAll(new OneCharReader(csv)));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertNull(new CsvRecordReader(new StringReader("")).next());
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        return readAll(new StringReader(csv));
+    }
+
+    private static List<List<String>> readAll(Reader in) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(in);
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> r; (r = reader.next()) != null; ) records.add(r);
+        return records;
+    }
+
+    // forces every quote and CRLF lookahead across a buffer refill
+    private static final class OneCharReader extends Reader {
+        private final String s;
+        private int i;
+
+        OneCharReader(String s) { this.s = s; }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (i == s.length()) return -1;
+            cbuf[off] = s.charAt(i++);
+            return 1;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
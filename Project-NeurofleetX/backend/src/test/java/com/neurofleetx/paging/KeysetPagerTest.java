@@ -0,0 +1,75 @@
+package com.neurofleetx.paging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleetx.model.Vehicle;
+
+class KeysetPagerTest {
+
+    @Test
+    void cursorRoundTripsAnyId() {
+        for (String id : new String[] { "65a1f0c2e4b0a1b2c3d4e5f6", "a", "id with spaces/and?query&chars", "ünïcødé" }) {
+            String cursor = KeysetPager.encode(id);
+            assertEquals(id, KeysetPager.decode(cursor));
+            assertTrue(cursor.matches("[A-Za-z0-9_-]+"), "cursor is not URL-safe: " + cursor);
+        }
+    }
+
+    @Test
+    void cursorHasNoPadding() {
+        assertFalse(KeysetPager.encode("ab").contains("="));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetPager.decode("not*base64"));
+    }
+
+    @Test
+    void pageAnswersBadRequestForAMalformedCursor() throws IOException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        KeysetPager pager = pager(mongoTemplate);
+
+        ResponseEntity<StreamingResponseBody> resp = pager.page(Vehicle.class, null, "not*base64", 10, null);
+        assertEquals(400, resp.getStatusCode().value());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        resp.getBody().writeTo(body);
+        assertEquals("{\"error\":\"Invalid cursor\"}", body.toString());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void noCursorOrLimitMeansOneUnpagedResponse() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        ResponseEntity<StreamingResponseBody> resp = pager(mongoTemplate).page(Vehicle.class, null, null, null, null);
+        assertEquals(200, resp.getStatusCode().value());
+        assertNull(resp.getHeaders().getFirst(KeysetPager.NEXT_CURSOR_HEADER));
+        // no probe for a next page; the body streams everything when written
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static KeysetPager pager(MongoTemplate mongoTemplate) {
+        KeysetPager pager = new KeysetPager();
+        ReflectionTestUtils.setField(pager, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(pager, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(pager, "defaultSize", 500);
+        ReflectionTestUtils.setField(pager, "maxSize", 5000);
+        return pager;
+    }
+}
@@ -0,0 +1,96 @@
+package com.neurofleetx.pooling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class PoolingServiceTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final double HOP = 60; // seconds between any two points
+
+    // points: 0 the vehicle, 1/2 pickup/dropoff of A, 3/4 pickup/dropoff of B
+    private final double[][] t = hops(5);
+    private final boolean[] isPickup = { false, true, false, true, false };
+    private final int[] partner = { -1, -1, 1, -1, 3 };
+
+    @Test
+    void returnsSecondsToTheLastStop() {
+        PoolRoute.Leg a = leg("A", 1), b = leg("B", 1);
+        double end = simulate(new int[] { 1, 3, 2, 4 }, legs(a, b), 0, 4);
+        assertEquals(4 * HOP, end, 1e-9);
+    }
+
+    @Test
+    void rejectsMoreSeatsThanTheVehicleHas() {
+        PoolRoute.Leg a = leg("A", 2), b = leg("B", 2);
+        assertNaN(simulate(new int[] { 1, 3, 2, 4 }, legs(a, b), 0, 3));
+        // the same two riders fit one after the other
+        assertEquals(4 * HOP, simulate(new int[] { 1, 2, 3, 4 }, legs(a, b), 0, 3), 1e-9);
+    }
+
+    @Test
+    void countsRidersAlreadyOnboard() {
+        PoolRoute.Leg a = leg("A", 1), b = leg("B", 1);
+        assertNaN(simulate(new int[] { 1, 2, 3, 4 }, legs(a, b), 4, 4));
+        assertEquals(4 * HOP, simulate(new int[] { 1, 2, 3, 4 }, legs(a, b), 3, 4), 1e-9);
+    }
+
+    @Test
+    void rejectsAPickupAfterItsDeadline() {
+        PoolRoute.Leg a = leg("A", 1);
+        PoolRoute.Leg late = new PoolRoute.Leg("B", 1, true, true, 0, 0, 0, 0, 3600, NOW + (long) (2 * HOP * 1000));
+        // B is picked up third, after 3 hops
+        assertNaN(simulate(new int[] { 1, 2, 3, 4 }, legs(a, late), 0, 4));
+        assertEquals(4 * HOP, simulate(new int[] { 3, 1, 2, 4 }, legs(a, late), 0, 4), 1e-9);
+    }
+
+    @Test
+    void rejectsARideLongerThanItsLimit() {
+        PoolRoute.Leg a = new PoolRoute.Leg("A", 1, true, true, 0, 0, 0, 0, 2 * HOP, NOW + 3_600_000);
+        PoolRoute.Leg b = leg("B", 1);
+        // A rides three hops while B is picked up and dropped on the way
+        assertNaN(simulate(new int[] { 1, 3, 4, 2 }, legs(a, b), 0, 4));
+        assertEquals(4 * HOP, simulate(new int[] { 1, 3, 2, 4 }, legs(a, b), 0, 4), 1e-9);
+    }
+
+    @Test
+    void countsTimeAlreadyRiddenForOnboardRiders() {
+        PoolRoute.Leg a = new PoolRoute.Leg("A", 1, true, true, 0, 0, 0, 0, 10 * 60, NOW + 3_600_000);
+        a.pickedUpAtMs = NOW - 9 * 60_000;
+        PoolRoute.Leg[] legOf = { null, null, a, null, null };
+        int[] noPartner = { -1, -1, -1, -1, -1 };
+        // one hop to the dropoff keeps A at exactly ten minutes, two hops break the limit
+        assertEquals(HOP, PoolingService.simulate(new int[] { 2 }, t, legOf, isPickup, noPartner, new double[5], 1, 4, NOW), 1e-9);
+        double[][] slower = hops(5);
+        slower[0][2] = 2 * HOP;
+        assertNaN(PoolingService.simulate(new int[] { 2 }, slower, legOf, isPickup, noPartner, new double[5], 1, 4, NOW));
+    }
+
+    private double simulate(int[] order, PoolRoute.Leg[] legOf, int onboard, int capacity) {
+        return PoolingService.simulate(order, t, legOf, isPickup, partner, new double[5], onboard, capacity, NOW);
+    }
+
+    private static PoolRoute.Leg leg(String tripId, int seats) {
+        return new PoolRoute.Leg(tripId, seats, true, true, 0, 0, 0, 0, 3600, NOW + 3_600_000);
+    }
+
+    private static PoolRoute.Leg[] legs(PoolRoute.Leg a, PoolRoute.Leg b) {
+        return new PoolRoute.Leg[] { null, a, a, b, b };
+    }
+
+    private static double[][] hops(int n) {
+        double[][] t = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(t[i], HOP);
+            t[i][i] = 0;
+        }
+        return t;
+    }
+
+    private static void assertNaN(double value) {
+        assertTrue(Double.isNaN(value), "expected an infeasible route, got " + value);
+    }
+}
@@ -0,0 +1,124 @@
+package com.neurofleetx.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void queriesAndMatricesMatchDijkstra() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            Graph g = Graph.random(random);
+            // a tiny settle limit forces extra shortcuts, which must not change any distance
+            ContractionHierarchy ch = ContractionHierarchy.build(g.road, round % 2 == 0 ? 500 : 3);
+            long[][] expected = new long[g.n][];
+            for (int s = 0; s < g.n; s++) expected[s] = g.dijkstra(s);
+
+            for (int s = 0; s < g.n; s++)
+                for (int t = 0; t < g.n; t++)
+                    assertEquals(exact(expected[s][t]), ch.query(s, t), "round " + round + ": " + s + " -> " + t);
+
+            int[] sources = random.ints(Math.min(g.n, 7), 0, g.n).toArray();
+            int[] targets = random.ints(Math.min(g.n, 9), 0, g.n).toArray();
+            int[][] matrix = ch.matrix(sources, targets);
+            for (int i = 0; i < sources.length; i++)
+                for (int j = 0; j < targets.length; j++)
+                    assertEquals(exact(expected[sources[i]][targets[j]]), matrix[i][j], "round " + round + " matrix");
+        }
+    }
+
+    @Test
+    void unsnappedPointsAreUnreachable() {
+        Graph g = Graph.random(new Random(5));
+        int[][] matrix = ContractionHierarchy.build(g.road, 500).matrix(new int[] { -1, 0 }, new int[] { 0, -1 });
+        assertEquals(ContractionHierarchy.UNREACHABLE, matrix[0][0]);
+        assertEquals(ContractionHierarchy.UNREACHABLE, matrix[0][1]);
+        assertEquals(ContractionHierarchy.UNREACHABLE, matrix[1][1]);
+        assertEquals(0, matrix[1][0]);
+    }
+
+    @Test
+    void survivesTheCacheFileRoundTrip() throws IOException {
+        Graph g = Graph.random(new Random(9));
+        ContractionHierarchy built = ContractionHierarchy.build(g.road, 500);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            built.write(out);
+        }
+        ContractionHierarchy read = ContractionHierarchy.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(built.nodeCount(), read.nodeCount());
+        for (int s = 0; s < g.n; s++)
+            for (int t = 0; t < g.n; t++) assertEquals(built.query(s, t), read.query(s, t));
+    }
+
+    private static int exact(long distance) {
+        return distance == Long.MAX_VALUE ? ContractionHierarchy.UNREACHABLE : (int) distance;
+    }
+
+    /** A random directed graph with parallel edges and self-loops, plus a plain adjacency list to check against. */
+    private static final class Graph {
+        final int n;
+        final List<int[]>[] adj;
+        final RoadGraph road;
+
+        @SuppressWarnings("unchecked")
+        private Graph(int n, int[] from, int[] to, int[] weight, double[] lat, double[] lon) {
+            this.n = n;
+            this.adj = new List[n];
+            for (int i = 0; i < n; i++) adj[i] = new ArrayList<>();
+            for (int e = 0; e < from.length; e++) if (from[e] != to[e]) adj[from[e]].add(new int[] { to[e], weight[e] });
+            this.road = RoadGraph.fromEdges(lat, lon, from, to, weight);
+        }
+
+        static Graph random(Random random) {
+            int n = 2 + random.nextInt(60), m = random.nextInt(n * 4);
+            double[] lat = new double[n], lon = new double[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = random.nextDouble();
+                lon[i] = random.nextDouble();
+            }
+            int[] from = new int[m], to = new int[m], weight = new int[m];
+            for (int e = 0; e < m; e++) {
+                from[e] = random.nextInt(n);
+                to[e] = random.nextInt(n);
+                weight[e] = 1 + random.nextInt(1000);
+            }
+            return new Graph(n, from, to, weight, lat, lon);
+        }
+
+        long[] dijkstra(int s) {
+            long[] dist = new long[n];
+            Arrays.fill(dist, Long.MAX_VALUE);
+            dist[s] = 0;
+            PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(a -> a[0]));
+            queue.add(new long[] { 0, s });
+            while (!queue.isEmpty()) {
+                long[] top = queue.poll();
+                int u = (int) top[1];
+                if (top[0] > dist[u]) continue;
+                for (int[] e : adj[u]) {
+                    long d = dist[u] + e[1];
+                    if (d < dist[e[0]]) {
+                        dist[e[0]] = d;
+                        queue.add(new long[] { d, e[0] });
+                    }
+                }
+            }
+            return dist;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.neurofleetx.trip;
+
+import static com.neurofleetx.trip.TripStateMachine.ASSIGNED;
+import static com.neurofleetx.trip.TripStateMachine.CANCELLED;
+import static com.neurofleetx.trip.TripStateMachine.COMPLETED;
+import static com.neurofleetx.trip.TripStateMachine.IN_PROGRESS;
+import static com.neurofleetx.trip.TripStateMachine.REQUESTED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TripStateMachineTest {
+    private static final List<String> ALL = List.of(REQUESTED, ASSIGNED, IN_PROGRESS, COMPLETED, CANCELLED);
+
+    @Test
+    void allowsExactlyTheDocumentedTransitions() {
+        Set<String> legal = Set.of(
+                REQUESTED + ">" + ASSIGNED, REQUESTED + ">" + CANCELLED,
+                ASSIGNED + ">" + IN_PROGRESS, ASSIGNED + ">" + CANCELLED,
+                IN_PROGRESS + ">" + COMPLETED);
+        for (String from : ALL) {
+            for (String to : ALL) {
+                assertEquals(legal.contains(from + ">" + to), TripStateMachine.allowed(from, to), from + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    void unknownStatusesAreNeverAllowed() {
+        assertFalse(TripStateMachine.allowed(null, REQUESTED));
+        assertFalse(TripStateMachine.allowed("FOO", ASSIGNED));
+        assertFalse(TripStateMachine.allowed(REQUESTED, "FOO"));
+    }
+
+    @Test
+    void onlyCompletedAndCancelledAreTerminal() {
+        assertTrue(TripStateMachine.isTerminal(COMPLETED));
+        assertTrue(TripStateMachine.isTerminal(CANCELLED));
+        assertFalse(TripStateMachine.isTerminal(REQUESTED));
+        assertFalse(TripStateMachine.isTerminal(ASSIGNED));
+        assertFalse(TripStateMachine.isTerminal(IN_PROGRESS));
+        assertFalse(TripStateMachine.isTerminal(null));
+        assertFalse(TripStateMachine.isTerminal("FOO"));
+    }
+
+    @Test
+    void sourcesAgreeWithAllowed() {
+        assertEquals(Set.of(REQUESTED, ASSIGNED), new HashSet<>(TripStateMachine.sourcesOf(CANCELLED)));
+        assertEquals(Set.of(ASSIGNED), new HashSet<>(TripStateMachine.sourcesOf(IN_PROGRESS)));
+        assertTrue(TripStateMachine.sourcesOf(REQUESTED).isEmpty());
+        for (String to : ALL) {
+            for (String from : TripStateMachine.sourcesOf(to)) assertTrue(TripStateMachine.allowed(from, to));
+        }
+    }
+}
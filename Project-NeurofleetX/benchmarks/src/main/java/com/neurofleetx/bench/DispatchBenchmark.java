@@ -0,0 +1,107 @@
+package com.neurofleetx.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neurofleetx.dispatch.AssignmentSolver;
+import com.neurofleetx.dispatch.Geo;
+import com.neurofleetx.dispatch.SpatialIndex;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Location;
+
+/**
+ * Nearest-driver lookups as TripController.optimize does them, over a synthetic city.
+ * bruteForce is the old full scan over every available driver; indexed is the grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final double LAT = 12.97, LON = 77.59, SPAN = 0.5;
+
+    @Param({"10000", "100000"})
+    public int fleetSize;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private List<Driver> drivers;
+    private SpatialIndex index;
+    private double[][] pickups;
+    private double[][] costs;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        drivers = new ArrayList<>(fleetSize);
+        index = new SpatialIndex(0.01);
+        for (int i = 0; i < fleetSize; i++) {
+            Driver d = new Driver();
+            d.setId("d" + i);
+            d.setStatus("AVAILABLE");
+            d.setCurrentLocation(new Location(LAT + rnd.nextDouble() * SPAN, LON + rnd.nextDouble() * SPAN, null));
+            drivers.add(d);
+            index.update(d.getId(), d.getCurrentLocation().getLatitude(), d.getCurrentLocation().getLongitude(), true);
+        }
+        pickups = new double[1024][];
+        for (int i = 0; i < pickups.length; i++) {
+            pickups[i] = new double[] {LAT + rnd.nextDouble() * SPAN, LON + rnd.nextDouble() * SPAN};
+        }
+        costs = new double[batchSize][batchSize];
+        for (double[] row : costs) {
+            for (int j = 0; j < row.length; j++) row[j] = rnd.nextDouble() * 10;
+        }
+    }
+
+    private double[] nextPickup() {
+        return pickups[next++ & (pickups.length - 1)];
+    }
+
+    @Benchmark
+    public String bruteForce() {
+        double[] p = nextPickup();
+        String best = null;
+        double bestKm = Double.POSITIVE_INFINITY;
+        for (Driver d : drivers) {
+            Location l = d.getCurrentLocation();
+            double km = Geo.haversineKm(p[0], p[1], l.getLatitude(), l.getLongitude());
+            if (km < bestKm) { bestKm = km; best = d.getId(); }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public List<SpatialIndex.Hit> indexed() {
+        double[] p = nextPickup();
+        return index.nearest(p[0], p[1], 1);
+    }
+
+    @Benchmark
+    public List<SpatialIndex.Hit> indexedTop6() {
+        double[] p = nextPickup();
+        return index.nearest(p[0], p[1], 6);
+    }
+
+    @Benchmark
+    public int[] batchAssignment() {
+        return AssignmentSolver.solve(costs);
+    }
+}
@@ -0,0 +1,57 @@
+package com.neurofleetx.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neurofleetx.dispatch.Geo;
+import com.neurofleetx.model.Location;
+
+/** Distance between two Locations: boxed getters versus primitive coordinates. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoBenchmark {
+    private Location[] locations;
+    private double[] lats, lons;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7);
+        locations = new Location[1024];
+        lats = new double[1024];
+        lons = new double[1024];
+        for (int i = 0; i < locations.length; i++) {
+            lats[i] = 12.9 + rnd.nextDouble();
+            lons[i] = 77.5 + rnd.nextDouble();
+            locations[i] = new Location(lats[i], lons[i], null);
+        }
+    }
+
+    @Benchmark
+    public double haversineLocations() {
+        int i = next++ & 1023, j = (i + 511) & 1023;
+        Location a = locations[i], b = locations[j];
+        return Geo.haversineKm(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+    }
+
+    @Benchmark
+    public double haversinePrimitive() {
+        int i = next++ & 1023, j = (i + 511) & 1023;
+        return Geo.haversineKm(lats[i], lons[i], lats[j], lons[j]);
+    }
+}
@@ -0,0 +1,48 @@
+package com.neurofleetx.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neurofleetx.security.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+
+/** Token issue and full verification throughput, measured from several threads. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil("ReplaceThisWithASecretKeyForDevOnly", 86400000L);
+        token = jwtUtil.generateToken("dispatcher@neurofleetx.com", "DISPATCHER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("dispatcher@neurofleetx.com", "DISPATCHER");
+    }
+
+    @Benchmark
+    public Claims validateToken() {
+        return jwtUtil.validateToken(token).getBody();
+    }
+}
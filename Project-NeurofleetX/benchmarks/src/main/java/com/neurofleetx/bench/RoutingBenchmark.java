@@ -0,0 +1,87 @@
+package com.neurofleetx.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neurofleetx.routing.ContractionHierarchy;
+import com.neurofleetx.routing.RoadGraph;
+
+/**
+ * Contraction hierarchy queries over a synthetic street grid with faster arterials
+ * every tenth row and column. A grid is harder for a hierarchy than a real road
+ * network, so real extracts of the same size should query faster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+    @Param({"100"})
+    public int side;
+
+    private ContractionHierarchy hierarchy;
+    private int nodes;
+    private int[] sources, targets, pairs;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(11);
+        nodes = side * side;
+        double[] lat = new double[nodes], lon = new double[nodes];
+        int[] from = new int[4 * nodes], to = new int[4 * nodes], ms = new int[4 * nodes];
+        int m = 0;
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int v = i * side + j;
+                lat[v] = 12.97 + i * 0.001;
+                lon[v] = 77.59 + j * 0.001;
+                int w = (i % 10 == 0 || j % 10 == 0 ? 100 : 400) + rnd.nextInt(40);
+                if (j + 1 < side) {
+                    from[m] = v; to[m] = v + 1; ms[m++] = w;
+                    from[m] = v + 1; to[m] = v; ms[m++] = w;
+                }
+                if (i + 1 < side) {
+                    from[m] = v; to[m] = v + side; ms[m++] = w;
+                    from[m] = v + side; to[m] = v; ms[m++] = w;
+                }
+            }
+        }
+        RoadGraph graph = RoadGraph.fromEdges(lat, lon, Arrays.copyOf(from, m),
+                Arrays.copyOf(to, m), Arrays.copyOf(ms, m));
+        hierarchy = ContractionHierarchy.build(graph, 500);
+        // a dispatch window: 6 candidates each for 20 pickups
+        sources = new int[120];
+        targets = new int[20];
+        for (int i = 0; i < sources.length; i++) sources[i] = rnd.nextInt(nodes);
+        for (int j = 0; j < targets.length; j++) targets[j] = rnd.nextInt(nodes);
+        pairs = new int[2048];
+        for (int i = 0; i < pairs.length; i++) pairs[i] = rnd.nextInt(nodes);
+    }
+
+    @Benchmark
+    public int pointToPoint() {
+        int i = (next++ & 1023) * 2;
+        return hierarchy.query(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public int[][] windowMatrix() {
+        return hierarchy.matrix(sources, targets);
+    }
+}
@@ -0,0 +1,88 @@
+package com.neurofleetx.bench;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+
+/** Jackson list serialization as the list endpoints do it, configured like Boot's mapper. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"100", "5000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<Trip> trips;
+    private List<Vehicle> vehicles;
+
+    @Setup
+    public void setup() {
+        writer = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).writer();
+        Random rnd = new Random(3);
+        trips = new ArrayList<>(size);
+        vehicles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Trip t = new Trip();
+            t.setId(Integer.toHexString(0x10000000 + i));
+            t.setPassengerId("p" + i);
+            t.setDriverId("d" + i);
+            t.setVehicleId("v" + i);
+            t.setStatus("COMPLETED");
+            t.setPickupLocation(new Location(12.9 + rnd.nextDouble(), 77.5 + rnd.nextDouble(), "Pickup " + i));
+            t.setDropoffLocation(new Location(12.9 + rnd.nextDouble(), 77.5 + rnd.nextDouble(), "Dropoff " + i));
+            t.setFare(50 + rnd.nextDouble() * 500);
+            t.setRequestedTime(Instant.now());
+            trips.add(t);
+
+            Vehicle v = new Vehicle();
+            v.setId("v" + i);
+            v.setLicensePlate("KA01AB" + i);
+            v.setMake("Tata");
+            v.setModel("Nexon");
+            v.setYear(2022);
+            v.setType("SUV");
+            v.setStatus("AVAILABLE");
+            v.setCurrentLocation(new Location(12.9 + rnd.nextDouble(), 77.5 + rnd.nextDouble(), null));
+            v.setLastUpdated(Instant.now());
+            vehicles.add(v);
+        }
+    }
+
+    @Benchmark
+    public byte[] trips() throws JsonProcessingException {
+        return writer.writeValueAsBytes(trips);
+    }
+
+    @Benchmark
+    public byte[] vehicles() throws JsonProcessingException {
+        return writer.writeValueAsBytes(vehicles);
+    }
+}
@@ -0,0 +1,113 @@
+package com.neurofleetx.sim;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Asynchronous client for the backend's REST API. Every call is timed into the report
+ * under its endpoint template, measured from when it was meant to be sent so a stalled
+ * client shows up as latency instead of silently lowering the offered load.
+ */
+final class FleetApi {
+    /** A non-2xx response. */
+    static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String body) {
+            super("HTTP " + status + ": " + body);
+            this.status = status;
+        }
+    }
+
+    private final String baseUrl;
+    private final LatencyReport report;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final HttpClient http;
+    private final ObjectMapper json = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private volatile String token;
+
+    FleetApi(SimConfig config, LatencyReport report) {
+        this.baseUrl = config.baseUrl;
+        this.report = report;
+        this.inFlight = new Semaphore(config.maxInFlight);
+        AtomicInteger n = new AtomicInteger();
+        // unbounded so a callback waiting for an in-flight permit never starves the completions that free one
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "sim-http-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.http = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    void login(String email, String password) {
+        JsonNode res = call("POST /api/auth/login", "POST", "/api/auth/login",
+                json.createObjectNode().put("email", email).put("password", password), System.nanoTime()).join();
+        token = res.path("token").asText(null);
+        if (token == null) throw new IllegalStateException("Login returned no token");
+    }
+
+    CompletableFuture<JsonNode> post(String endpoint, String path, Object body, long intendedNanos) {
+        return call(endpoint, "POST", path, body, intendedNanos);
+    }
+
+    CompletableFuture<JsonNode> put(String endpoint, String path, long intendedNanos) {
+        return call(endpoint, "PUT", path, null, intendedNanos);
+    }
+
+    private CompletableFuture<JsonNode> call(String endpoint, String method, String path, Object body, long intendedNanos) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+        if (token != null) req.header("Authorization", "Bearer " + token);
+        if (body == null) {
+            req.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            try {
+                req.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body)));
+            } catch (IOException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        inFlight.acquireUninterruptibly();
+        return http.sendAsync(req.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((res, ex) -> {
+                    inFlight.release();
+                    String error = ex != null ? rootCause(ex).getClass().getSimpleName()
+                            : res.statusCode() / 100 == 2 ? null : String.valueOf(res.statusCode());
+                    report.record(endpoint, System.nanoTime() - intendedNanos, error);
+                })
+                .thenApply(res -> {
+                    if (res.statusCode() / 100 != 2) throw new ApiException(res.statusCode(), new String(res.body()));
+                    try {
+                        return res.body().length == 0 ? json.nullNode() : json.readTree(res.body());
+                    } catch (IOException ex) {
+                        throw new CompletionException(ex);
+                    }
+                });
+    }
+
+    static Throwable rootCause(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) t = t.getCause();
+        return t;
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.neurofleetx.sim;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Per-endpoint latency histograms and error counts. Recording is lock-free; {@link #reset()}
+ * throws away what was recorded so far, which is how the warmup is excluded.
+ */
+final class LatencyReport {
+    private static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private static final class Endpoint {
+        final Recorder recorder = new Recorder(MAX_NANOS, 3);
+        final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    }
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private volatile long startedNanos = System.nanoTime();
+
+    /** {@code error} is the HTTP status or exception name, null on success. */
+    void record(String endpoint, long nanos, String error) {
+        Endpoint e = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        e.recorder.recordValue(Math.min(Math.max(nanos, 1), MAX_NANOS));
+        if (error != null) e.errors.computeIfAbsent(error, k -> new LongAdder()).increment();
+    }
+
+    /** Counts a simulation-level event such as a completed trip or a trip with no driver. */
+    void outcome(String name) {
+        outcomes.computeIfAbsent(name, k -> new LongAdder()).increment();
+    }
+
+    void reset() {
+        for (Endpoint e : endpoints.values()) {
+            e.recorder.reset();
+            e.errors.clear();
+        }
+        outcomes.clear();
+        startedNanos = System.nanoTime();
+    }
+
+    Map<String, Object> summary() {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        Map<String, Object> rows = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Histogram h = entry.getValue().recorder.getIntervalHistogram();
+            if (h.getTotalCount() == 0 && entry.getValue().errors.isEmpty()) continue;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", h.getTotalCount());
+            row.put("perSecond", round(h.getTotalCount() / seconds));
+            row.put("p50Ms", millis(h.getValueAtPercentile(50)));
+            row.put("p90Ms", millis(h.getValueAtPercentile(90)));
+            row.put("p99Ms", millis(h.getValueAtPercentile(99)));
+            row.put("p999Ms", millis(h.getValueAtPercentile(99.9)));
+            row.put("maxMs", millis(h.getMaxValue()));
+            Map<String, Long> errors = new TreeMap<>();
+            entry.getValue().errors.forEach((k, v) -> errors.put(k, v.sum()));
+            row.put("errors", errors);
+            rows.put(entry.getKey(), row);
+        }
+        Map<String, Long> counted = new TreeMap<>();
+        outcomes.forEach((k, v) -> counted.put(k, v.sum()));
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("seconds", round(seconds));
+        out.put("endpoints", rows);
+        out.put("outcomes", counted);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> summary, PrintStream out) {
+        out.printf("%nMeasured %.1f s%n", (Double) summary.get("seconds"));
+        out.printf("%-34s %9s %9s %9s %9s %9s %9s %9s %8s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        Map<String, Object> rows = (Map<String, Object>) summary.get("endpoints");
+        List<String> errorLines = new ArrayList<>();
+        for (Map.Entry<String, Object> e : rows.entrySet()) {
+            Map<String, Object> r = (Map<String, Object>) e.getValue();
+            Map<String, Long> errors = (Map<String, Long>) r.get("errors");
+            long failed = errors.values().stream().mapToLong(Long::longValue).sum();
+            out.printf("%-34s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d%n", e.getKey(), r.get("count"), r.get("perSecond"),
+                    r.get("p50Ms"), r.get("p90Ms"), r.get("p99Ms"), r.get("p999Ms"), r.get("maxMs"), failed);
+            if (failed > 0) errorLines.add("  " + e.getKey() + " " + errors);
+        }
+        if (!errorLines.isEmpty()) {
+            out.println("Errors by status:");
+            errorLines.forEach(out::println);
+        }
+        out.println("Outcomes: " + summary.get("outcomes"));
+    }
+
+    static void write(Map<String, Object> summary, Path file) throws IOException {
+        Files.write(file, new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(summary));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10) / 10.0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.neurofleetx.sim;
+
+import java.util.Random;
+
+/**
+ * One simulated driver. It wanders between random waypoints while idle and, once a trip is
+ * assigned, drives to the pickup and then the dropoff in straight legs. Called from the
+ * ping ticker and from HTTP callbacks, hence synchronized.
+ */
+final class SimAgent {
+    enum Phase { IDLE, TO_PICKUP, STARTING, ON_TRIP, COMPLETING }
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    final String driverId;
+    private double lat, lon, targetLat, targetLon;
+    private Phase phase = Phase.IDLE;
+    private String tripId;
+    private double dropoffLat, dropoffLon;
+
+    SimAgent(String driverId, double lat, double lon) {
+        this.driverId = driverId;
+        this.lat = lat;
+        this.lon = lon;
+        this.targetLat = lat;
+        this.targetLon = lon;
+    }
+
+    synchronized double lat() { return lat; }
+    synchronized double lon() { return lon; }
+    synchronized Phase phase() { return phase; }
+    synchronized String tripId() { return tripId; }
+
+    /** Moves up to {@code km} toward the current target; true when the target is reached. */
+    synchronized boolean advance(double km) {
+        if (phase == Phase.STARTING || phase == Phase.COMPLETING) return false;
+        double cos = Math.cos(Math.toRadians(lat));
+        double dy = (targetLat - lat) * KM_PER_DEGREE, dx = (targetLon - lon) * KM_PER_DEGREE * cos;
+        double left = Math.sqrt(dx * dx + dy * dy);
+        if (left <= km) {
+            lat = targetLat;
+            lon = targetLon;
+            return true;
+        }
+        lat += dy / left * km / KM_PER_DEGREE;
+        lon += dx / left * km / (KM_PER_DEGREE * cos);
+        return false;
+    }
+
+    synchronized void wander(double lat, double lon) {
+        if (phase != Phase.IDLE) return;
+        targetLat = lat;
+        targetLon = lon;
+    }
+
+    synchronized void assigned(String tripId, double pickupLat, double pickupLon, double dropoffLat, double dropoffLon) {
+        this.tripId = tripId;
+        this.dropoffLat = dropoffLat;
+        this.dropoffLon = dropoffLon;
+        targetLat = pickupLat;
+        targetLon = pickupLon;
+        phase = Phase.TO_PICKUP;
+    }
+
+    /** Moves to the next phase once the current target is reached; returns the phase entered. */
+    synchronized Phase arrived() {
+        if (phase == Phase.TO_PICKUP) phase = Phase.STARTING;
+        else if (phase == Phase.ON_TRIP) phase = Phase.COMPLETING;
+        return phase;
+    }
+
+    synchronized void started() {
+        phase = Phase.ON_TRIP;
+        targetLat = dropoffLat;
+        targetLon = dropoffLon;
+    }
+
+    synchronized void free() {
+        phase = Phase.IDLE;
+        tripId = null;
+        targetLat = lat;
+        targetLon = lon;
+    }
+
+    /** A uniformly random point within {@code radiusKm} of the centre. */
+    static double[] randomPoint(Random rnd, double centerLat, double centerLon, double radiusKm) {
+        double r = radiusKm * Math.sqrt(rnd.nextDouble()), a = rnd.nextDouble() * 2 * Math.PI;
+        double lat = centerLat + r * Math.sin(a) / KM_PER_DEGREE;
+        double lon = centerLon + r * Math.cos(a) / (KM_PER_DEGREE * Math.cos(Math.toRadians(centerLat)));
+        return new double[] { lat, lon };
+    }
+}
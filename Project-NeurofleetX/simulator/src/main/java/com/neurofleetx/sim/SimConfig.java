@@ -0,0 +1,60 @@
+package com.neurofleetx.sim;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Run parameters, read from {@code --name=value} arguments. */
+final class SimConfig {
+    final String baseUrl;
+    final String email;
+    final String password;
+    final int drivers;
+    final int vehicles;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final double tripsPerSecond;
+    final long pingIntervalMs;
+    final double speedKmh;
+    final double timeScale;
+    final double centerLat;
+    final double centerLon;
+    final double radiusKm;
+    final int maxInFlight;
+    final long seed;
+    final String out;
+
+    private SimConfig(Map<String, String> a) {
+        baseUrl = a.getOrDefault("base-url", "http://localhost:8080").replaceAll("/+$", "");
+        email = a.getOrDefault("email", "dispatcher@neurofleetx.com");
+        password = a.getOrDefault("password", "dispatcher123");
+        drivers = Integer.parseInt(a.getOrDefault("drivers", "200"));
+        vehicles = Integer.parseInt(a.getOrDefault("vehicles", String.valueOf(drivers)));
+        durationSeconds = Integer.parseInt(a.getOrDefault("duration", "120"));
+        warmupSeconds = Integer.parseInt(a.getOrDefault("warmup", "15"));
+        tripsPerSecond = Double.parseDouble(a.getOrDefault("trips-per-second", "5"));
+        pingIntervalMs = Long.parseLong(a.getOrDefault("ping-interval-ms", "1000"));
+        speedKmh = Double.parseDouble(a.getOrDefault("speed-kmh", "30"));
+        timeScale = Double.parseDouble(a.getOrDefault("time-scale", "10"));
+        centerLat = Double.parseDouble(a.getOrDefault("center-lat", "12.97"));
+        centerLon = Double.parseDouble(a.getOrDefault("center-lon", "77.59"));
+        radiusKm = Double.parseDouble(a.getOrDefault("radius-km", "8"));
+        maxInFlight = Integer.parseInt(a.getOrDefault("max-in-flight", "256"));
+        seed = Long.parseLong(a.getOrDefault("seed", "42"));
+        out = a.get("out");
+        if (drivers < 1 || vehicles < 1) throw new IllegalArgumentException("drivers and vehicles must be at least 1");
+        if (tripsPerSecond < 0 || pingIntervalMs < 10 || timeScale <= 0 || maxInFlight < 1) {
+            throw new IllegalArgumentException("trips-per-second >= 0, ping-interval-ms >= 10, time-scale > 0 and max-in-flight >= 1");
+        }
+    }
+
+    static SimConfig parse(String[] args) {
+        Map<String, String> a = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + arg);
+            int eq = arg.indexOf('=');
+            if (eq < 0) a.put(arg.substring(2), "true");
+            else a.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return new SimConfig(a);
+    }
+}
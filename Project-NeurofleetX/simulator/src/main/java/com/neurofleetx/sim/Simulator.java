@@ -0,0 +1,266 @@
+package com.neurofleetx.sim;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.neurofleetx.model.Driver;
+import com.neurofleetx.model.Location;
+import com.neurofleetx.model.Trip;
+import com.neurofleetx.model.Vehicle;
+
+/**
+ * Drives a running backend the way a live fleet would: N drivers and vehicles created through
+ * the API, moving and sending location pings, and trips arriving as a Poisson process that go
+ * through create, optimize, assign, start and complete as the assigned driver reaches the
+ * pickup and dropoff. Prints per-endpoint throughput and latency percentiles at the end.
+ *
+ * <pre>java -jar target/simulator.jar --drivers=500 --trips-per-second=20 --duration=300</pre>
+ */
+public final class Simulator {
+    private static final String CREATE_DRIVER = "POST /api/drivers";
+    private static final String CREATE_VEHICLE = "POST /api/vehicles";
+    private static final String DRIVER_PING = "PUT /api/drivers/{id}/location";
+    private static final String VEHICLE_PING = "PUT /api/vehicles/{id}/location";
+    private static final String CREATE_TRIP = "POST /api/trips";
+    private static final String OPTIMIZE = "POST /api/trips/{id}/optimize";
+    private static final String ASSIGN = "PUT /api/trips/{id}/assign";
+    private static final String START = "PUT /api/trips/{id}/start";
+    private static final String COMPLETE = "PUT /api/trips/{id}/complete";
+    private static final String CANCEL = "PUT /api/trips/{id}/cancel";
+    private static final int SLICES = 20;
+
+    private final SimConfig config;
+    private final LatencyReport report = new LatencyReport();
+    private final FleetApi api;
+    private final Random rnd;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final List<SimAgent> agents = new ArrayList<>();
+    private final Map<String, SimAgent> agentsByDriver = new ConcurrentHashMap<>();
+    private final List<String> vehicles = new ArrayList<>();
+    // which agent each vehicle travels with; a vehicle moves to whichever driver it was last assigned with
+    private final ConcurrentMap<String, SimAgent> carriers = new ConcurrentHashMap<>();
+    private final AtomicInteger passengers = new AtomicInteger();
+
+    private Simulator(SimConfig config) {
+        this.config = config;
+        this.api = new FleetApi(config, report);
+        this.rnd = new Random(config.seed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimConfig config;
+        try {
+            config = SimConfig.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(2);
+            return;
+        }
+        try {
+            new Simulator(config).run();
+        } catch (CompletionException ex) {
+            // setup calls (login, fleet creation) failing means there is nothing to measure
+            System.err.println("Setup failed against " + config.baseUrl + ": " + FleetApi.rootCause(ex));
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        api.login(config.email, config.password);
+        createFleet();
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sim-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        long slice = Math.max(1, config.pingIntervalMs / SLICES);
+        AtomicInteger tick = new AtomicInteger();
+        scheduler.scheduleAtFixedRate(() -> tick(tick.getAndIncrement() % SLICES), slice, slice, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        System.out.printf("Warming up for %d s, then measuring for %d s at %.1f trips/s%n",
+                config.warmupSeconds, config.durationSeconds, config.tripsPerSecond);
+        boolean measuring = false;
+        long next = start;
+        while (true) {
+            if (config.tripsPerSecond > 0) {
+                // exponential gaps make arrivals a Poisson process; the schedule is fixed in advance
+                next += (long) (-Math.log(1 - rnd.nextDouble()) / config.tripsPerSecond * 1e9);
+            } else {
+                next = end;
+            }
+            if (!measuring && Math.min(next, end) >= measureFrom) {
+                sleepUntil(measureFrom);
+                report.reset();
+                measuring = true;
+            }
+            if (next >= end) break;
+            sleepUntil(next);
+            trip(next);
+        }
+        sleepUntil(end);
+        Map<String, Object> summary = report.summary();
+        scheduler.shutdownNow();
+
+        LatencyReport.print(summary, System.out);
+        if (config.out != null) LatencyReport.write(summary, Paths.get(config.out));
+        api.close();
+    }
+
+    private void createFleet() {
+        long t0 = System.nanoTime();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < config.drivers; i++) {
+            double[] p = SimAgent.randomPoint(rnd, config.centerLat, config.centerLon, config.radiusKm);
+            Driver d = new Driver();
+            d.setEmail("sim-" + runId + "-" + i + "@sim.neurofleetx.local");
+            d.setFirstName("Sim");
+            d.setLastName("Driver " + i);
+            d.setLicenseNumber("SIM-" + runId + "-" + i);
+            d.setStatus("AVAILABLE");
+            d.setCurrentLocation(new Location(p[0], p[1], null));
+            pending.add(api.post(CREATE_DRIVER, "/api/drivers", d, System.nanoTime()).thenAccept(res -> {
+                SimAgent agent = new SimAgent(res.path("id").asText(), p[0], p[1]);
+                synchronized (agents) {
+                    agents.add(agent);
+                }
+                agentsByDriver.put(agent.driverId, agent);
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        pending.clear();
+        for (int i = 0; i < config.vehicles; i++) {
+            SimAgent carrier = agents.get(i % agents.size());
+            Vehicle v = new Vehicle();
+            v.setLicensePlate("SIM-" + runId + "-" + i);
+            v.setMake("Sim");
+            v.setModel("Fleet");
+            v.setType("SEDAN");
+            v.setStatus("AVAILABLE");
+            v.setCurrentLocation(new Location(carrier.lat(), carrier.lon(), null));
+            pending.add(api.post(CREATE_VEHICLE, "/api/vehicles", v, System.nanoTime()).thenAccept(res -> {
+                String id = res.path("id").asText();
+                synchronized (vehicles) {
+                    vehicles.add(id);
+                }
+                carriers.put(id, carrier);
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        System.out.printf("Created %d drivers and %d vehicles in %d ms%n",
+                agents.size(), vehicles.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+    }
+
+    // each slice moves and pings 1/SLICES of the fleet, so pings are spread over the interval
+    private void tick(int slice) {
+        long now = System.nanoTime();
+        double km = config.speedKmh * config.timeScale * config.pingIntervalMs / 3_600_000.0;
+        for (int i = slice; i < agents.size(); i += SLICES) {
+            SimAgent a = agents.get(i);
+            if (a.advance(km)) arrived(a);
+            ping(DRIVER_PING, "/api/drivers/", a.driverId, a, now);
+        }
+        for (int i = slice; i < vehicles.size(); i += SLICES) {
+            String id = vehicles.get(i);
+            ping(VEHICLE_PING, "/api/vehicles/", id, carriers.get(id), now);
+        }
+    }
+
+    private void ping(String endpoint, String prefix, String id, SimAgent at, long now) {
+        api.put(endpoint, prefix + id + "/location?latitude=" + at.lat() + "&longitude=" + at.lon(), now)
+                .exceptionally(ex -> null);
+    }
+
+    private void arrived(SimAgent a) {
+        String tripId = a.tripId();
+        switch (a.arrived()) {
+            case IDLE:
+                double[] p = SimAgent.randomPoint(rnd, config.centerLat, config.centerLon, config.radiusKm);
+                a.wander(p[0], p[1]);
+                break;
+            case STARTING:
+                api.put(START, "/api/trips/" + tripId + "/start", System.nanoTime()).whenComplete((res, ex) -> {
+                    if (ex == null) {
+                        a.started();
+                    } else {
+                        report.outcome("trip.start-failed");
+                        a.free();
+                    }
+                });
+                break;
+            case COMPLETING:
+                api.put(COMPLETE, "/api/trips/" + tripId + "/complete", System.nanoTime()).whenComplete((res, ex) -> {
+                    report.outcome(ex == null ? "trip.completed" : "trip.complete-failed");
+                    a.free();
+                });
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void trip(long intended) {
+        double[] pickup = SimAgent.randomPoint(rnd, config.centerLat, config.centerLon, config.radiusKm);
+        double[] dropoff = SimAgent.randomPoint(rnd, config.centerLat, config.centerLon, config.radiusKm);
+        Trip t = new Trip();
+        t.setPassengerId("sim-" + runId + "-p" + passengers.incrementAndGet());
+        t.setPickupLocation(new Location(pickup[0], pickup[1], null));
+        t.setDropoffLocation(new Location(dropoff[0], dropoff[1], null));
+        report.outcome("trip.requested");
+        api.post(CREATE_TRIP, "/api/trips", t, intended).thenCompose(created -> {
+            String tripId = created.path("id").asText();
+            return api.post(OPTIMIZE, "/api/trips/" + tripId + "/optimize", null, System.nanoTime()).thenCompose(best -> {
+                String driverId = best.path("driverId").asText(null), vehicleId = best.path("vehicleId").asText(null);
+                if (driverId == null || vehicleId == null) return cancel(tripId, "trip.no-driver");
+                return api.put(ASSIGN, "/api/trips/" + tripId + "/assign?driverId=" + driverId + "&vehicleId=" + vehicleId,
+                        System.nanoTime()).handle((assigned, ex) -> {
+                    if (ex != null) {
+                        cancel(tripId, "trip.assign-failed");
+                        return null;
+                    }
+                    report.outcome("trip.assigned");
+                    SimAgent agent = agentsByDriver.get(driverId);
+                    if (agent == null) {
+                        // a driver the simulator did not create, such as the seed data; finish the trip at once
+                        report.outcome("trip.foreign-driver");
+                        api.put(START, "/api/trips/" + tripId + "/start", System.nanoTime())
+                                .thenCompose(s -> api.put(COMPLETE, "/api/trips/" + tripId + "/complete", System.nanoTime()))
+                                .exceptionally(e -> null);
+                        return null;
+                    }
+                    carriers.computeIfPresent(vehicleId, (k, v) -> agent);
+                    agent.assigned(tripId, pickup[0], pickup[1], dropoff[0], dropoff[1]);
+                    return null;
+                });
+            });
+        }).exceptionally(ex -> {
+            report.outcome("trip.failed");
+            return null;
+        });
+    }
+
+    private CompletableFuture<JsonNode> cancel(String tripId, String outcome) {
+        report.outcome(outcome);
+        return api.put(CANCEL, "/api/trips/" + tripId + "/cancel", System.nanoTime()).exceptionally(ex -> null);
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long wait = nanoTime - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+}